@@ -0,0 +1,88 @@
+package com.example.echo
+
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.LinearGradient
+import android.graphics.Paint
+import android.graphics.Shader
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.ext.junit.runners.AndroidJUnit4
+
+import org.junit.Test
+import org.junit.runner.RunWith
+
+import org.junit.Assert.*
+import java.io.ByteArrayOutputStream
+import java.util.Random
+
+/**
+ * ImageEncoder formatlarının dosya boyutu ve decode süresi karşılaştırması.
+ * Sonuçlar logcat'e "ImageEncoderBenchmark" etiketiyle yazılır.
+ */
+@RunWith(AndroidJUnit4::class)
+class ImageEncoderBenchmark {
+
+    private val iterations = 10
+
+    @Test
+    fun compareFormats() {
+        val bitmap = createTestBitmap(1024, 768)
+
+        for (encoder in ImageEncoder.values()) {
+            if (!encoder.isSupported()) {
+                Log.i(TAG, "${encoder.formatName}: bu cihazda desteklenmiyor")
+                continue
+            }
+
+            val output = ByteArrayOutputStream()
+            assertTrue(encoder.encode(bitmap, output))
+            val bytes = output.toByteArray()
+
+            var decodeNanos = 0L
+            repeat(iterations) {
+                val start = SystemClock.elapsedRealtimeNanos()
+                val decoded = BitmapFactory.decodeByteArray(bytes, 0, bytes.size)
+                decodeNanos += SystemClock.elapsedRealtimeNanos() - start
+
+                assertNotNull(decoded)
+                assertEquals(bitmap.width, decoded.width)
+                decoded.recycle()
+            }
+
+            Log.i(TAG, "${encoder.formatName}: ${bytes.size / 1024} KB, " +
+                    "ortalama decode ${decodeNanos / iterations / 1000} µs")
+        }
+
+        bitmap.recycle()
+    }
+
+    // Fotoğrafa benzer içerik: renk geçişi + gürültü (düz renk formatları yanıltıcı derecede küçültür)
+    private fun createTestBitmap(width: Int, height: Int): Bitmap {
+        val bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888)
+        val canvas = Canvas(bitmap)
+        val paint = Paint()
+        paint.shader = LinearGradient(0f, 0f, width.toFloat(), height.toFloat(),
+                Color.rgb(30, 90, 160), Color.rgb(230, 180, 60), Shader.TileMode.CLAMP)
+        canvas.drawRect(0f, 0f, width.toFloat(), height.toFloat(), paint)
+
+        val random = Random(42)
+        for (i in 0 until width * height / 8) {
+            val x = random.nextInt(width)
+            val y = random.nextInt(height)
+            val pixel = bitmap.getPixel(x, y)
+            val noise = random.nextInt(41) - 20
+            bitmap.setPixel(x, y, Color.rgb(
+                    (Color.red(pixel) + noise).coerceIn(0, 255),
+                    (Color.green(pixel) + noise).coerceIn(0, 255),
+                    (Color.blue(pixel) + noise).coerceIn(0, 255)))
+        }
+        return bitmap
+    }
+
+    companion object {
+        private const val TAG = "ImageEncoderBenchmark"
+    }
+}
@@ -15,6 +15,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 import java.util.List;
+import java.util.Objects;
 
 public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentViewHolder> {
 
@@ -83,9 +84,7 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
                 return;
             }
 
-            // Butonu devre dışı bırak
-            holder.likeButton.setEnabled(false);
-
+            // Buton kilitlenmiyor: ardışık dokunuşlar LikeManager'da tek yazmaya indirgenir
             // Mevcut durumu al
             boolean isCurrentlyLiked = comment.isLiked();
             int currentLikeCount = comment.getLikeCount();
@@ -107,48 +106,38 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
             updateLikeButton(holder, comment.isLiked());
 
             // Firebase'e kaydet
-            likeManager.toggleCommentLike(comment.getCommentId(), isCurrentlyLiked, new LikeManager.OnLikeCallback() {
+            // Sonuç pencere + ağ süresi sonra gelir: holder o sırada başka bir yorumu gösteriyor
+            // olabilir, bu yüzden yorum ID ile bulunup notifyItemChanged ile yenilenir
+            String commentId = comment.getCommentId();
+            likeManager.toggleCommentLike(commentId, isCurrentlyLiked, new LikeManager.OnLikeCallback() {
                 @Override
-                public void onSuccess(boolean isNowLiked) {
-                    // Firebase'den güncel likeCount'u çek
-                    db.collection("comments").document(comment.getCommentId())
-                            .get()
-                            .addOnSuccessListener(documentSnapshot -> {
-                                if (documentSnapshot.exists()) {
-                                    Long likeCountLong = documentSnapshot.getLong("likeCount");
-                                    if (likeCountLong != null) {
-                                        comment.setLikeCount(likeCountLong.intValue());
-                                        if (comment.getLikeCount() > 0) {
-                                            holder.likeCount.setText(String.valueOf(comment.getLikeCount()));
-                                            holder.likeCount.setVisibility(View.VISIBLE);
-                                        } else {
-                                            holder.likeCount.setVisibility(View.GONE);
-                                        }
-                                    }
-                                }
-                                holder.likeButton.setEnabled(true);
-                            })
-                            .addOnFailureListener(e -> {
-                                holder.likeButton.setEnabled(true);
-                            });
+                public void onSuccess(boolean isNowLiked, int likeCount) {
+                    int index = indexOfComment(commentId);
+                    if (index == -1) return;
+
+                    Comment current = commentList.get(index);
+                    current.setLiked(isNowLiked);
+                    // Yazma sonucundaki sayıyı kullan, comment belgesini tekrar okuma
+                    if (likeCount != LikeManager.UNKNOWN_COUNT) {
+                        current.setLikeCount(likeCount);
+                    }
+                    notifyItemChanged(index);
                 }
 
                 @Override
-                public void onFailure(String error) {
-                    // Hata durumunda eski haline döndür
-                    comment.setLiked(isCurrentlyLiked);
-                    comment.setLikeCount(currentLikeCount);
-
-                    if (comment.getLikeCount() > 0) {
-                        holder.likeCount.setText(String.valueOf(comment.getLikeCount()));
-                        holder.likeCount.setVisibility(View.VISIBLE);
-                    } else {
-                        holder.likeCount.setVisibility(View.GONE);
+                public void onFailure(String error, boolean confirmedLiked) {
+                    // Backend'de onaylanmış son duruma döndür (ara dokunuşların sayı etkisi geri alınır)
+                    int index = indexOfComment(commentId);
+                    if (index != -1) {
+                        Comment current = commentList.get(index);
+                        if (current.isLiked() != confirmedLiked) {
+                            current.setLikeCount(current.getLikeCount() + (confirmedLiked ? 1 : -1));
+                            current.setLiked(confirmedLiked);
+                        }
+                        notifyItemChanged(index);
                     }
-                    updateLikeButton(holder, isCurrentlyLiked);
-                    holder.likeButton.setEnabled(true);
 
-                    Toast.makeText(v.getContext(), "Hata: " + error, Toast.LENGTH_SHORT).show();
+                    Toast.makeText(context, "Hata: " + error, Toast.LENGTH_SHORT).show();
                 }
             });
         });
@@ -179,6 +168,15 @@ public class CommentAdapter extends RecyclerView.Adapter<CommentAdapter.CommentV
         }
     }
 
+    private int indexOfComment(String commentId) {
+        for (int i = 0; i < commentList.size(); i++) {
+            if (Objects.equals(commentList.get(i).getCommentId(), commentId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public int getItemCount() {
         return commentList.size();
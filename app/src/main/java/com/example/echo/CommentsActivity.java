@@ -200,73 +200,87 @@ public class CommentsActivity extends AppCompatActivity {
         sendCommentButton.setEnabled(false);
         sendCommentButton.setAlpha(0.5f);
 
-        // Kullanıcı bilgilerini al
+        // Kullanıcı bilgilerini al (önce cache, yoksa Firestore)
+        UserProfileCache.Profile profile = UserProfileCache.getInstance().get(currentUser.getUid());
+        if (profile != null) {
+            writeComment(content, profile.getFullName(), profile.getUsertag());
+            return;
+        }
+
         db.collection("users").document(currentUser.getUid())
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
                     String userName = documentSnapshot.getString("fullName");
                     String usertag = documentSnapshot.getString("usertag");
+                    UserProfileCache.getInstance().put(currentUser.getUid(), userName, usertag);
 
-                    if (userName == null) {
-                        userName = currentUser.getEmail() != null ?
-                                currentUser.getEmail().split("@")[0] : "Kullanıcı";
-                    }
-                    if (usertag == null) {
-                        usertag = userName.toLowerCase().replace(" ", "");
+                    writeComment(content, userName, usertag);
+                })
+                .addOnFailureListener(e -> {
+                    sendCommentButton.setEnabled(true);
+                    sendCommentButton.setAlpha(1.0f);
+                    Toast.makeText(this, "Hata: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    /**
+     * Yorumu Firestore'a yaz
+     */
+    private void writeComment(String content, String userName, String usertag) {
+        if (userName == null) {
+            userName = currentUser.getEmail() != null ?
+                    currentUser.getEmail().split("@")[0] : "Kullanıcı";
+        }
+        if (usertag == null) {
+            usertag = userName.toLowerCase().replace(" ", "");
+        }
+
+        // Yorum verisini oluştur
+        Map<String, Object> commentData = new HashMap<>();
+        commentData.put("postId", postId);
+        commentData.put("userId", currentUser.getUid());
+        commentData.put("userName", userName);
+        commentData.put("usertag", usertag);
+        commentData.put("content", content);
+        commentData.put("timestamp", FieldValue.serverTimestamp());
+        commentData.put("likeCount", 0);
+        commentData.put("isLiked", false);
+
+        // Final değişkenler
+        final String finalUserName = userName;
+        final String finalUsertag = usertag;
+
+        // Firestore'a kaydet
+        db.collection("comments")
+                .add(commentData)
+                .addOnSuccessListener(documentReference -> {
+                    // Post'un yorum sayısını artır (sıcak belge yerine shard'a)
+                    ShardedCounter.increment(db.collection("posts").document(postId),
+                            "commentCount", 1);
+
+                    // ✨ BİLDİRİM OLUŞTUR
+                    if (currentPost != null && !currentUser.getUid().equals(currentPost.getUserId())) {
+                        NotificationManager notificationManager = new NotificationManager(db, currentUser.getUid());
+                        notificationManager.createCommentNotification(
+                                postId,
+                                currentPost.getUserId(),
+                                finalUserName,
+                                finalUsertag,
+                                content
+                        );
                     }
 
-                    // Yorum verisini oluştur
-                    Map<String, Object> commentData = new HashMap<>();
-                    commentData.put("postId", postId);
-                    commentData.put("userId", currentUser.getUid());
-                    commentData.put("userName", userName);
-                    commentData.put("usertag", usertag);
-                    commentData.put("content", content);
-                    commentData.put("timestamp", FieldValue.serverTimestamp());
-                    commentData.put("likeCount", 0);
-                    commentData.put("isLiked", false);
-
-                    // Final değişkenler
-                    final String finalUserName = userName;
-                    final String finalUsertag = usertag;
-
-                    // Firestore'a kaydet
-                    db.collection("comments")
-                            .add(commentData)
-                            .addOnSuccessListener(documentReference -> {
-                                // Post'un yorum sayısını artır
-                                db.collection("posts").document(postId)
-                                        .update("commentCount", FieldValue.increment(1));
-
-                                // ✨ BİLDİRİM OLUŞTUR
-                                if (currentPost != null && !currentUser.getUid().equals(currentPost.getUserId())) {
-                                    NotificationManager notificationManager = new NotificationManager(db, currentUser.getUid());
-                                    notificationManager.createCommentNotification(
-                                            postId,
-                                            currentPost.getUserId(),
-                                            finalUserName,
-                                            finalUsertag,
-                                            content
-                                    );
-                                }
+                    // Input'u temizle
+                    commentInput.setText("");
+                    sendCommentButton.setEnabled(true);
 
-                                // Input'u temizle
-                                commentInput.setText("");
-                                sendCommentButton.setEnabled(true);
-
-                                Toast.makeText(this, "Yorum eklendi! 💬", Toast.LENGTH_SHORT).show();
-                            })
-                            .addOnFailureListener(e -> {
-                                sendCommentButton.setEnabled(true);
-                                sendCommentButton.setAlpha(1.0f);
-                                Toast.makeText(this, "Yorum eklenemedi: " + e.getMessage(),
-                                        Toast.LENGTH_SHORT).show();
-                            });
+                    Toast.makeText(this, "Yorum eklendi! 💬", Toast.LENGTH_SHORT).show();
                 })
                 .addOnFailureListener(e -> {
                     sendCommentButton.setEnabled(true);
                     sendCommentButton.setAlpha(1.0f);
-                    Toast.makeText(this, "Hata: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    Toast.makeText(this, "Yorum eklenemedi: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
                 });
     }
 
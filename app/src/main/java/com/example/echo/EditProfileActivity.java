@@ -49,7 +49,7 @@ public class EditProfileActivity extends AppCompatActivity {
         mAuth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
         currentUser = mAuth.getCurrentUser();
-        localImageManager = new LocalImageManager(this);
+        localImageManager = LocalImageManager.getInstance(this);
 
         initViews();
         setupImagePickers();
@@ -203,38 +203,67 @@ public class EditProfileActivity extends AppCompatActivity {
 
         String userId = currentUser.getUid();
 
-        // Profil fotoğrafı seçildiyse kaydet (LOCAL)
-        if (selectedProfileImageUri != null) {
-            currentProfileImagePath = localImageManager.saveProfileImage(userId, selectedProfileImageUri);
-            if (currentProfileImagePath == null) {
+        // Seçilen görselleri arka planda kaydet, bitince Firestore'u güncelle
+        saveSelectedProfileImage(userId, () ->
+                updateProfileDocument(userId, newFullName, newUsername, newBio));
+    }
+
+    /**
+     * Profil fotoğrafı seçildiyse kaydet (LOCAL)
+     */
+    private void saveSelectedProfileImage(String userId, Runnable onDone) {
+        if (selectedProfileImageUri == null) {
+            saveSelectedCoverImage(userId, onDone);
+            return;
+        }
+
+        localImageManager.saveProfileImage(userId, selectedProfileImageUri, filePath -> {
+            if (filePath != null) {
+                currentProfileImagePath = filePath;
+            } else {
                 Toast.makeText(this, "Profil fotoğrafı kaydedilemedi", Toast.LENGTH_SHORT).show();
             }
+            saveSelectedCoverImage(userId, onDone);
+        });
+    }
+
+    /**
+     * Cover fotoğrafı seçildiyse kaydet (LOCAL)
+     */
+    private void saveSelectedCoverImage(String userId, Runnable onDone) {
+        if (selectedCoverImageUri == null) {
+            onDone.run();
+            return;
         }
 
-        // Cover fotoğrafı seçildiyse kaydet (LOCAL)
-        if (selectedCoverImageUri != null) {
-            currentCoverImagePath = localImageManager.saveCoverImage(userId, selectedCoverImageUri);
-            if (currentCoverImagePath == null) {
+        localImageManager.saveCoverImage(userId, selectedCoverImageUri, filePath -> {
+            if (filePath != null) {
+                currentCoverImagePath = filePath;
+            } else {
                 Toast.makeText(this, "Kapak fotoğrafı kaydedilemedi", Toast.LENGTH_SHORT).show();
             }
-        }
+            onDone.run();
+        });
+    }
 
+    private void updateProfileDocument(String userId, String newFullName,
+                                       String newUsername, String newBio) {
         // Firestore'u güncelle (sadece text bilgileri + timestamp)
         Map<String, Object> updates = new HashMap<>();
         updates.put("fullName", newFullName);
         updates.put("usertag", newUsername);
         updates.put("bio", newBio);
+        // Ad veya usertag değişmiş olabilir: arama anahtarlarını yenile
+        updates.put(SearchIndex.FIELD_USER_KEYS,
+                SearchIndex.userSearchKeys(newFullName, newUsername));
+        updates.put(SearchIndex.FIELD_USER_FUZZY_KEYS,
+                SearchIndex.userFuzzyKeys(newFullName, newUsername));
         // ✨ YENİ: Profil güncellenme zamanını ekle (cache busting için)
         updates.put("profileUpdatedAt", com.google.firebase.firestore.FieldValue.serverTimestamp());
 
         db.collection("users").document(userId)
                 .update(updates)
                 .addOnSuccessListener(aVoid -> {
-                    // ✨ CACHE TEMİZLE
-                    if (selectedProfileImageUri != null || selectedCoverImageUri != null) {
-                        localImageManager.clearGlideCache(userId);
-                    }
-
                     Toast.makeText(this, "Profil güncellendi! ✅", Toast.LENGTH_SHORT).show();
 
                     // ✨ RESULT GÖNDER (ProfileActivity güncellensin diye)
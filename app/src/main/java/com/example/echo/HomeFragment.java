@@ -14,9 +14,13 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,6 +34,12 @@ public class HomeFragment extends Fragment {
     private List<Post> postList;
 
     private FirebaseFirestore db;
+    private QueryPager feedPager;
+    private ListenerRegistration liveFeedListener; // İlk sayfa + yeni gönderiler için canlı dinleyici
+    private boolean awaitingFirstPage = false; // Canlı dinleyicinin ilk snapshot'ı bekleniyor
+
+    private static final int PAGE_SIZE = 15;
+    private static final int PREFETCH_THRESHOLD = 5; // Sona 5 gönderi kala sonraki sayfayı çek
 
     @Nullable
     @Override
@@ -44,53 +54,208 @@ public class HomeFragment extends Fragment {
         swipeRefreshLayout = view.findViewById(R.id.swipeRefreshLayout);
 
         setupRecyclerView();
-        loadPostsFromFirestore();
         setupSwipeRefresh();
+        loadPostsFromFirestore();
 
         return view;
     }
 
     private void setupRecyclerView() {
         postList = new ArrayList<>();
-        postAdapter = new PostAdapter(postList, getContext()); // ✅ Context ekle
-        postsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        postAdapter = new PostAdapter(getContext()); // ✅ Context ekle
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        postsRecyclerView.setLayoutManager(layoutManager);
         postsRecyclerView.setAdapter(postAdapter);
+
+        // Listenin sonuna yaklaşınca bir sonraki sayfayı önceden yükle
+        postsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= postList.size() - PREFETCH_THRESHOLD) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    private Query feedQuery() {
+        return db.collection("posts").orderBy("timestamp", Query.Direction.DESCENDING);
     }
 
     private void loadPostsFromFirestore() {
-        // Firestore'dan gönderileri yükle (en yeni en üstte)
-        db.collection("posts")
-                .orderBy("timestamp", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    postList.clear();
-
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        // Hiç gönderi yoksa örnek gönderiler ekle
-                    } else {
-                        for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                            Post post = document.toObject(Post.class);
-                            if (post != null) {
-                                post.setPostId(document.getId());
-
-                                // Timestamp'den timeAgo hesapla
-                                Timestamp timestamp = document.getTimestamp("timestamp");
-                                if (timestamp != null) {
-                                    post.setTimeAgo(calculateTimeAgo(timestamp.toDate()));
-                                } else {
-                                    post.setTimeAgo("Şimdi");
-                                }
-
-                                postList.add(post);
-                            }
-                        }
-                        postAdapter.notifyDataSetChanged();
+        // Firestore'dan gönderileri yükle (en yeni en üstte, sayfa sayfa)
+        if (feedPager == null) {
+            feedPager = new QueryPager(feedQuery(), PAGE_SIZE);
+        }
+        // İlk sayfa canlı dinleyiciden gelir, pager sadece daha eski sayfaları yükler
+        feedPager.reset();
+        startLiveUpdates();
+    }
+
+    private void loadNextPage() {
+        // İlk sayfa gelmeden pager'ın cursor'ı yok, baştan yükleyip kopya üretmesin
+        if (feedPager != null && !awaitingFirstPage) {
+            feedPager.loadNextPage(pageCallback);
+        }
+    }
+
+    private final QueryPager.OnPageCallback pageCallback = new QueryPager.OnPageCallback() {
+        @Override
+        public void onPageLoaded(List<DocumentSnapshot> documents, boolean isFirstPage) {
+            if (isFirstPage) {
+                postList.clear();
+            }
+
+            List<Post> pagePosts = new ArrayList<>();
+            for (DocumentSnapshot document : documents) {
+                // Canlı pencereden kayan veya silinmeyle pencereye giren gönderi zaten listede olabilir
+                if (!isFirstPage && indexOfPost(document.getId()) != -1) continue;
+
+                Post post = toPost(document);
+                if (post != null) {
+                    pagePosts.add(post);
+                }
+            }
+            postList.addAll(pagePosts);
+            // Yüklenen gönderiler yerel arama index'ine girer
+            if (getContext() != null) {
+                LocalSearchIndex.getInstance(getContext()).indexPosts(pagePosts);
+            }
+            // Sayfanın beğeni durumlarını ve shard toplamlarını tek seferde çöz
+            postAdapter.prefetchLikeStatus(pagePosts);
+            postAdapter.prefetchShardTotals(pagePosts);
+            // DiffUtil sadece yeni satırları ekler, listeyi yeniden kurmaz
+            postAdapter.submitList(new ArrayList<>(postList));
+        }
+
+        @Override
+        public void onFailure(String error) {
+            if (getContext() != null) {
+                Toast.makeText(getContext(), "Gönderiler yüklenemedi: " + error,
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
+
+    /**
+     * En yeni PAGE_SIZE gönderiyi canlı dinle
+     * İlk snapshot ilk sayfanın kendisidir (ayrı bir get() yapılmaz, ilk sayfa bir kez okunur);
+     * pager onun son belgesinden devam eder. Sonraki snapshot'lar sadece değişiklikleri uygular
+     */
+    private void startLiveUpdates() {
+        stopLiveUpdates();
+
+        awaitingFirstPage = true;
+        liveFeedListener = feedQuery().limit(PAGE_SIZE).addSnapshotListener((snapshots, error) -> {
+            if (error != null || snapshots == null) {
+                if (awaitingFirstPage && error != null) {
+                    pageCallback.onFailure(error.getMessage());
+                }
+                return;
+            }
+
+            if (awaitingFirstPage) {
+                awaitingFirstPage = false;
+                List<DocumentSnapshot> documents = snapshots.getDocuments();
+                feedPager.resumeAfter(documents.isEmpty() ? null : documents.get(documents.size() - 1),
+                        documents.size() >= PAGE_SIZE);
+                pageCallback.onPageLoaded(documents, true);
+                return;
+            }
+            applyDocumentChanges(snapshots);
+        });
+    }
+
+    private void stopLiveUpdates() {
+        if (liveFeedListener != null) {
+            liveFeedListener.remove();
+            liveFeedListener = null;
+        }
+    }
+
+    /**
+     * Canlı dinleyicinin belgeleri postList'in başındaki bölümle aynı sırada,
+     * bu yüzden değişiklik index'leri doğrudan listeye uygulanabilir
+     */
+    private void applyDocumentChanges(QuerySnapshot snapshots) {
+        List<Post> changedPosts = new ArrayList<>();
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            String postId = change.getDocument().getId();
+            int existingIndex = indexOfPost(postId);
+
+            switch (change.getType()) {
+                case ADDED:
+                case MODIFIED:
+                    Post post = toPost(change.getDocument());
+                    if (post == null) break;
+
+                    if (existingIndex != -1) {
+                        // Beğeni durumu Firestore'da değil, kullanıcıya özel
+                        post.setLiked(postList.get(existingIndex).isLiked());
+                        postList.remove(existingIndex);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Gönderiler yüklenemedi: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                });
+                    postList.add(Math.min(change.getNewIndex(), postList.size()), post);
+                    changedPosts.add(post);
+                    break;
+
+                case REMOVED:
+                    // Üste yeni gönderi gelince en eskisi limit penceresinden çıkar ama silinmemiştir;
+                    // listede kalır, sadece gerçekten silindiyse çıkarılır
+                    removeIfDeleted(change.getDocument().getReference());
+                    break;
+            }
+        }
+
+        if (getContext() != null) {
+            LocalSearchIndex.getInstance(getContext()).indexPosts(changedPosts);
+        }
+
+        // Sadece değişen satırlar yeniden bind edilir
+        postAdapter.submitList(new ArrayList<>(postList));
+    }
+
+    private void removeIfDeleted(DocumentReference postRef) {
+        postRef.get().addOnSuccessListener(document -> {
+            if (document.exists() || getView() == null) return;
+
+            int index = indexOfPost(postRef.getId());
+            if (index != -1) {
+                postList.remove(index);
+                postAdapter.submitList(new ArrayList<>(postList));
+            }
+            if (getContext() != null) {
+                LocalSearchIndex.getInstance(getContext()).removePost(postRef.getId());
+            }
+        });
+    }
+
+    private int indexOfPost(String postId) {
+        for (int i = 0; i < postList.size(); i++) {
+            if (postId.equals(postList.get(i).getPostId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Post toPost(DocumentSnapshot document) {
+        Post post = document.toObject(Post.class);
+        if (post != null) {
+            post.setPostId(document.getId());
+
+            // Timestamp'den timeAgo hesapla
+            Timestamp timestamp = document.getTimestamp("timestamp");
+            if (timestamp != null) {
+                post.setTimeAgo(calculateTimeAgo(timestamp.toDate()));
+                post.setTimestamp(timestamp);
+            } else {
+                post.setTimeAgo("Şimdi");
+            }
+        }
+        return post;
     }
 
     private String calculateTimeAgo(Date date) {
@@ -122,12 +287,12 @@ public class HomeFragment extends Fragment {
         }
     }
 
-    // Fragment tekrar görünür olduğunda listeyi güncelle
+    // Fragment tekrar görünür olduğunda canlı dinleyici listeyi zaten güncel tutuyor,
+    // bu yüzden onResume'da yeniden sorgu atılmıyor
     @Override
-    public void onResume() {
-        super.onResume();
-        // Firestore'dan güncel veriyi çek
-        loadPostsFromFirestore();
+    public void onDestroyView() {
+        super.onDestroyView();
+        stopLiveUpdates();
     }
 
     private void setupSwipeRefresh() {
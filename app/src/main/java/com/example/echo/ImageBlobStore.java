@@ -0,0 +1,558 @@
+package com.example.echo;
+
+import android.util.Log;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * İçerik Adresli Görsel Deposu (index ve referans sayımı)
+ * Her görsel kaynak içeriğinin SHA-256 özetiyle blobs/{hash}.{jpg|webp} olarak bir kez saklanır;
+ * hangi encoder ile yazıldığı index'te tutulur.
+ * Referanslar ("profile_{userId}", "cover_{userId}", "post_{postId}") tek bir blob'u gösterir;
+ * bir blob'un referans sayısı onu gösteren referansların sayısıdır.
+ * Disk bütçesi aşılınca en uzun süredir erişilmeyen blob'lar çıkarılır (eviction);
+ * referansları korunur, böylece yükleyici görselin çıkarıldığını bilip placeholder gösterir.
+ * Görsellerin uzak kopyası yoktur: oturumdaki kullanıcının profil, cover ve post görselleri
+ * (ve sahibi bilinmeyenler) hiç çıkarılmaz, bütçe bu durumda aşılabilir.
+ * Dosya silme işini LocalImageManager yapar, bu sınıf sadece hangi path'lerin silineceğini söyler.
+ * Bellekteki index kısa süreli kilitlenir; index dosyası kilit dışında, anlık kopyadan yazılır
+ * (bind sırasında çağrılan touch/isEvicted disk yazmasını beklemez).
+ */
+public class ImageBlobStore {
+
+    private static final String TAG = "ImageBlobStore";
+    private static final String DIRECTORY_NAME = "blobs";
+    private static final String INDEX_FILE_NAME = "index.json";
+    public static final List<String> CATEGORIES = Arrays.asList("profile", "cover", "post");
+
+    private final File directory;
+    private final File indexFile;
+
+    private final Map<String, Long> blobSizes = new HashMap<>();  // hash -> dosya boyutu (renditions dahil)
+    private final Map<String, Long> lastAccess = new HashMap<>(); // hash -> son erişim zamanı
+    private final Map<String, String> formats = new HashMap<>();  // hash -> format adı (yoksa jpeg)
+    private final Map<String, String> refs = new HashMap<>();     // referans -> hash
+    private final Map<String, Integer> refCounts = new HashMap<>(); // hash -> referans sayısı
+    private final Map<String, String> owners = new HashMap<>();   // post referansı -> sahibi (userId)
+    private boolean accessDirty = false;
+
+    private final Object fileLock = new Object(); // Sadece index dosyası yazımı için
+    private long snapshotVersion = 0;  // this ile korunur
+    private long writtenVersion = 0;   // fileLock ile korunur
+
+    public ImageBlobStore(File filesDir) {
+        this.directory = new File(filesDir, DIRECTORY_NAME);
+        this.indexFile = new File(directory, INDEX_FILE_NAME);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Blob klasörü oluşturulamadı: " + directory);
+        }
+        loadIndex();
+    }
+
+    /**
+     * Kayıtlı blob'un FULL dosya path'i (index'teki formata göre)
+     */
+    public synchronized String blobPath(String hash) {
+        return blobPath(hash, getFormat(hash));
+    }
+
+    /**
+     * Verilen encoder ile yazılacak blob'un FULL dosya path'i
+     */
+    public String blobPath(String hash, ImageEncoder encoder) {
+        return new File(directory, hash + encoder.extension).getAbsolutePath();
+    }
+
+    /**
+     * Blob'un yazıldığı format
+     */
+    public synchronized ImageEncoder getFormat(String hash) {
+        return ImageEncoder.fromFormatName(formats.get(hash));
+    }
+
+    /**
+     * Path bu depoya mı ait?
+     */
+    public boolean isBlobPath(String path) {
+        return path != null && path.startsWith(directory.getAbsolutePath() + File.separator);
+    }
+
+    /**
+     * Blob daha önce kaydedildi mi?
+     */
+    public synchronized boolean contains(String hash) {
+        return blobSizes.containsKey(hash);
+    }
+
+    /**
+     * Path, index'te kayıtlı bir blob'un FULL dosyası mı?
+     */
+    public synchronized boolean containsPath(String path) {
+        String hash = hashOf(path);
+        return hash != null && blobSizes.containsKey(hash);
+    }
+
+    /**
+     * Yeni yazılan blob'u index'e ekle
+     */
+    public void addBlob(String hash, long size, ImageEncoder encoder) {
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            blobSizes.put(hash, size);
+            formats.put(hash, encoder.formatName);
+            lastAccess.put(hash, System.currentTimeMillis());
+            snapshot = snapshotIndex();
+        }
+        writeIndex(snapshot);
+    }
+
+    /**
+     * Blob'a erişildiğini kaydet (sadece bellekte, flushAccessTimes ile diske yazılır)
+     */
+    public synchronized void touch(String path) {
+        String hash = hashOf(path);
+        if (hash != null && blobSizes.containsKey(hash)) {
+            lastAccess.put(hash, System.currentTimeMillis());
+            accessDirty = true;
+        }
+    }
+
+    /**
+     * Bekleyen erişim zamanlarını index'e yaz
+     */
+    public void flushAccessTimes() {
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            if (!accessDirty) return;
+            snapshot = snapshotIndex();
+        }
+        writeIndex(snapshot);
+    }
+
+    /**
+     * Bu path, bütçe nedeniyle diskten çıkarılmış ama hâlâ referansı olan bir blob mu?
+     */
+    public synchronized boolean isEvicted(String path) {
+        String hash = hashOf(path);
+        return hash != null && !blobSizes.containsKey(hash) && refCounts.containsKey(hash);
+    }
+
+    /**
+     * Depodaki blob'ların toplam boyutu
+     */
+    public synchronized long totalSize() {
+        long total = 0;
+        for (long size : blobSizes.values()) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Toplam boyut bütçeye inene kadar en uzun süredir erişilmeyen blob'ları index'ten çıkar
+     * ve path'lerini döndür (silinmesi için). Referanslar korunur.
+     * userId'nin kendi görselleri çıkarılmaz (bkz. isPinned)
+     */
+    public List<String> evictToFit(long budgetBytes, String keepHash, String userId) {
+        List<String> evictedPaths = new ArrayList<>();
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            long total = totalSize();
+            if (total <= budgetBytes) {
+                return evictedPaths;
+            }
+            total = evictLocked(total, budgetBytes, keepHash, userId, evictedPaths);
+            snapshot = evictedPaths.isEmpty() ? null : snapshotIndex();
+        }
+        if (snapshot != null) {
+            writeIndex(snapshot);
+        }
+        return evictedPaths;
+    }
+
+    private long evictLocked(long total, long budgetBytes, String keepHash, String userId,
+                             List<String> evictedPaths) {
+        List<String> candidates = new ArrayList<>(blobSizes.keySet());
+        candidates.remove(keepHash);
+        for (Map.Entry<String, String> entry : refs.entrySet()) {
+            if (isPinned(entry.getKey(), userId)) {
+                candidates.remove(entry.getValue());
+            }
+        }
+        Collections.sort(candidates, (a, b) -> Long.compare(accessTime(a), accessTime(b)));
+
+        for (String hash : candidates) {
+            if (total <= budgetBytes) break;
+
+            evictedPaths.add(blobPath(hash));
+            total -= blobSizes.remove(hash);
+            lastAccess.remove(hash);
+            formats.remove(hash);
+        }
+        return total;
+    }
+
+    /**
+     * Referansın görseli çıkarılamaz mı? Kullanıcının kendi profil/cover/post görselleri ve
+     * sahibi kayıtlı olmayan post görselleri (eski index) başka yerde saklanmadığı için korunur
+     */
+    private boolean isPinned(String ref, String userId) {
+        String owner;
+        if ("post".equals(categoryOf(ref))) {
+            owner = owners.get(ref);
+        } else {
+            owner = ref.substring(ref.indexOf('_') + 1);
+        }
+        return owner == null || owner.equals(userId);
+    }
+
+    /**
+     * Kategori bazında disk kullanımı ("profile", "cover", "post").
+     * Birden fazla kategoriden referans alan blob bir kez, ilk kategoriye sayılır
+     */
+    public synchronized Map<String, Long> usageByCategory() {
+        Map<String, String> categoryByHash = new HashMap<>();
+        for (Map.Entry<String, String> entry : refs.entrySet()) {
+            String category = categoryOf(entry.getKey());
+            if (category == null) continue;
+
+            String current = categoryByHash.get(entry.getValue());
+            if (current == null || CATEGORIES.indexOf(category) < CATEGORIES.indexOf(current)) {
+                categoryByHash.put(entry.getValue(), category);
+            }
+        }
+
+        Map<String, Long> usage = new HashMap<>();
+        for (String category : CATEGORIES) {
+            usage.put(category, 0L);
+        }
+        for (Map.Entry<String, Long> entry : blobSizes.entrySet()) {
+            String category = categoryByHash.get(entry.getKey());
+            if (category != null) {
+                usage.put(category, usage.get(category) + entry.getValue());
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * Referans veya dosya adından kategori ("profile_x" -> "profile")
+     */
+    public static String categoryOf(String name) {
+        for (String category : CATEGORIES) {
+            if (name.startsWith(category + "_")) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Referansı blob'a bağla (ownerId: post görselinin sahibi, diğer referanslarda null).
+     * Referans önceden başka bir blob'u gösteriyorsa ve o blob sahipsiz kaldıysa
+     * index'ten çıkarılır ve path'i döndürülür (silinmesi için), yoksa null
+     */
+    public String addRef(String hash, String ref, String ownerId) {
+        String orphanPath = null;
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            if (ownerId != null) {
+                owners.put(ref, ownerId);
+            }
+            String previousHash = refs.put(ref, hash);
+            if (!hash.equals(previousHash)) {
+                incrementRefCount(hash);
+                if (previousHash != null) {
+                    decrementRefCount(previousHash);
+                    orphanPath = removeIfUnreferenced(previousHash);
+                }
+            }
+            snapshot = snapshotIndex();
+        }
+        writeIndex(snapshot);
+        return orphanPath;
+    }
+
+    /**
+     * Referansı bırak; blob sahipsiz kaldıysa path'ini döndür (silinmesi için), yoksa null
+     */
+    public String releaseRef(String ref) {
+        String orphanPath;
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            owners.remove(ref);
+            String hash = refs.remove(ref);
+            if (hash == null) {
+                return null;
+            }
+            decrementRefCount(hash);
+            orphanPath = removeIfUnreferenced(hash);
+            snapshot = snapshotIndex();
+        }
+        writeIndex(snapshot);
+        return orphanPath;
+    }
+
+    /**
+     * Referansı olan post ID'leri (GC'de Firestore'da hâlâ var mı diye kontrol edilir)
+     */
+    public synchronized Set<String> getPostIds() {
+        Set<String> postIds = new HashSet<>();
+        for (String ref : refs.keySet()) {
+            if (ref.startsWith("post_")) {
+                postIds.add(ref.substring("post_".length()));
+            }
+        }
+        return postIds;
+    }
+
+    /**
+     * Hiçbir referansı kalmayan blob'ları index'ten çıkar ve path'lerini döndür.
+     * Index'te olmayan (yarım kalmış yazma vb.) dosyalar da eklenir
+     */
+    public List<String> removeUnreferenced() {
+        List<String> orphanPaths = new ArrayList<>();
+        File[] files = directory.listFiles(); // Dosya sistemi kilit dışında taranır
+        IndexSnapshot snapshot;
+        synchronized (this) {
+            removeUnreferencedLocked(files, orphanPaths);
+            snapshot = orphanPaths.isEmpty() ? null : snapshotIndex();
+        }
+        if (snapshot != null) {
+            writeIndex(snapshot);
+        }
+        return orphanPaths;
+    }
+
+    private void removeUnreferencedLocked(File[] files, List<String> orphanPaths) {
+        Iterator<String> iterator = blobSizes.keySet().iterator();
+        while (iterator.hasNext()) {
+            String hash = iterator.next();
+            if (!refCounts.containsKey(hash)) {
+                orphanPaths.add(blobPath(hash));
+                iterator.remove();
+                lastAccess.remove(hash);
+                formats.remove(hash);
+            }
+        }
+
+        // Index'te hiç yer almayan FULL dosyalar (çökme sonrası kalanlar)
+        if (files != null) {
+            for (File file : files) {
+                String hash = hashOf(file.getAbsolutePath());
+                if (hash == null || hash.contains("_")) continue; // index.json, renditions
+
+                if (!blobSizes.containsKey(hash)) {
+                    orphanPaths.add(file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    private long accessTime(String hash) {
+        Long time = lastAccess.get(hash);
+        return time != null ? time : 0;
+    }
+
+    private String hashOf(String path) {
+        if (!isBlobPath(path)) {
+            return null;
+        }
+        String name = new File(path).getName();
+        for (ImageEncoder encoder : ImageEncoder.values()) {
+            if (name.endsWith(encoder.extension)) {
+                return name.substring(0, name.length() - encoder.extension.length());
+            }
+        }
+        return null;
+    }
+
+    private void incrementRefCount(String hash) {
+        Integer count = refCounts.get(hash);
+        refCounts.put(hash, count != null ? count + 1 : 1);
+    }
+
+    private void decrementRefCount(String hash) {
+        Integer count = refCounts.get(hash);
+        if (count == null || count <= 1) {
+            refCounts.remove(hash);
+        } else {
+            refCounts.put(hash, count - 1);
+        }
+    }
+
+    private String removeIfUnreferenced(String hash) {
+        if (refCounts.containsKey(hash)) {
+            return null;
+        }
+        String path = blobPath(hash);
+        blobSizes.remove(hash);
+        lastAccess.remove(hash);
+        formats.remove(hash);
+        return path;
+    }
+
+    /**
+     * Akışın SHA-256 özeti (hex). Akış kapatılmaz
+     */
+    public static String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 desteklenmiyor", e);
+        }
+
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private void loadIndex() {
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (InputStream inputStream = new FileInputStream(indexFile)) {
+            byte[] bytes = new byte[(int) indexFile.length()];
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += read;
+            }
+
+            JSONObject root = new JSONObject(new String(bytes, 0, offset, StandardCharsets.UTF_8));
+            JSONObject blobs = root.optJSONObject("blobs");
+            if (blobs != null) {
+                Iterator<String> keys = blobs.keys();
+                while (keys.hasNext()) {
+                    String hash = keys.next();
+                    blobSizes.put(hash, blobs.optLong(hash));
+                }
+            }
+            JSONObject access = root.optJSONObject("access");
+            if (access != null) {
+                Iterator<String> keys = access.keys();
+                while (keys.hasNext()) {
+                    String hash = keys.next();
+                    lastAccess.put(hash, access.optLong(hash));
+                }
+            }
+            JSONObject formatsJson = root.optJSONObject("formats");
+            if (formatsJson != null) {
+                Iterator<String> keys = formatsJson.keys();
+                while (keys.hasNext()) {
+                    String hash = keys.next();
+                    formats.put(hash, formatsJson.optString(hash));
+                }
+            }
+            JSONObject refsJson = root.optJSONObject("refs");
+            if (refsJson != null) {
+                Iterator<String> keys = refsJson.keys();
+                while (keys.hasNext()) {
+                    String ref = keys.next();
+                    String hash = refsJson.optString(ref);
+                    refs.put(ref, hash);
+                    incrementRefCount(hash);
+                }
+            }
+            JSONObject ownersJson = root.optJSONObject("owners");
+            if (ownersJson != null) {
+                Iterator<String> keys = ownersJson.keys();
+                while (keys.hasNext()) {
+                    String ref = keys.next();
+                    owners.put(ref, ownersJson.optString(ref));
+                }
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Blob index'i okunamadı", e);
+        }
+    }
+
+    /**
+     * Index'in anlık kopyası (this kilidi altında çağrılır; sadece map kopyalanır)
+     */
+    private IndexSnapshot snapshotIndex() {
+        accessDirty = false;
+        return new IndexSnapshot(++snapshotVersion, new HashMap<>(blobSizes),
+                new HashMap<>(lastAccess), new HashMap<>(formats), new HashMap<>(refs),
+                new HashMap<>(owners));
+    }
+
+    /**
+     * Anlık kopyayı geçici dosyaya yazıp yerine taşı (yarım yazılmış index oluşmaz).
+     * this kilidi dışında çalışır; daha yeni bir kopya zaten yazıldıysa atlanır
+     */
+    private void writeIndex(IndexSnapshot snapshot) {
+        synchronized (fileLock) {
+            if (snapshot.version <= writtenVersion) {
+                return;
+            }
+
+            File tempFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+            try {
+                JSONObject root = new JSONObject();
+                root.put("blobs", new JSONObject(snapshot.blobSizes));
+                root.put("access", new JSONObject(snapshot.lastAccess));
+                root.put("formats", new JSONObject(snapshot.formats));
+                root.put("refs", new JSONObject(snapshot.refs));
+                root.put("owners", new JSONObject(snapshot.owners));
+
+                try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                    fos.write(root.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                if (!tempFile.renameTo(indexFile)) {
+                    Log.e(TAG, "Blob index'i taşınamadı");
+                }
+                writtenVersion = snapshot.version;
+            } catch (IOException | JSONException e) {
+                Log.e(TAG, "Blob index'i yazılamadı", e);
+            }
+        }
+    }
+
+    private static class IndexSnapshot {
+        final long version;
+        final Map<String, Long> blobSizes;
+        final Map<String, Long> lastAccess;
+        final Map<String, String> formats;
+        final Map<String, String> refs;
+        final Map<String, String> owners;
+
+        IndexSnapshot(long version, Map<String, Long> blobSizes, Map<String, Long> lastAccess,
+                      Map<String, String> formats, Map<String, String> refs,
+                      Map<String, String> owners) {
+            this.version = version;
+            this.blobSizes = blobSizes;
+            this.lastAccess = lastAccess;
+            this.formats = formats;
+            this.refs = refs;
+            this.owners = owners;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.echo;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import java.io.OutputStream;
+
+/**
+ * Görsel Kodlama Stratejisi
+ * Kaydetme hattı bitmap'leri seçilen formatla sıkıştırır; format blob index'ine yazılır.
+ * WEBP_LOSSY (API 30+) aynı görsel kalitede JPEG'den belirgin şekilde küçüktür ve
+ * daha hızlı decode edilir. Bitmap.CompressFormat AVIF kodlamayı desteklemediği için
+ * AVIF seçeneği yoktur.
+ */
+public enum ImageEncoder {
+
+    JPEG("jpeg", ".jpg", 85),
+    WEBP_LOSSY("webp", ".webp", 80); // 80 kalite, JPEG 85 ile benzer görünüm
+
+    public final String formatName;
+    public final String extension;
+    public final int quality;
+
+    ImageEncoder(String formatName, String extension, int quality) {
+        this.formatName = formatName;
+        this.extension = extension;
+        this.quality = quality;
+    }
+
+    /**
+     * Cihazın desteklediği en verimli format
+     */
+    public static ImageEncoder forDevice() {
+        return WEBP_LOSSY.isSupported() ? WEBP_LOSSY : JPEG;
+    }
+
+    /**
+     * Index'te kayıtlı format adından encoder (bilinmiyorsa JPEG)
+     */
+    public static ImageEncoder fromFormatName(String formatName) {
+        for (ImageEncoder encoder : values()) {
+            if (encoder.formatName.equals(formatName)) {
+                return encoder;
+            }
+        }
+        return JPEG;
+    }
+
+    public boolean isSupported() {
+        return this != WEBP_LOSSY || Build.VERSION.SDK_INT >= Build.VERSION_CODES.R;
+    }
+
+    /**
+     * Bitmap'i bu formatla yaz
+     */
+    public boolean encode(Bitmap bitmap, OutputStream outputStream) {
+        return bitmap.compress(compressFormat(), quality, outputStream);
+    }
+
+    // WEBP_LOSSY alanı API 30 öncesinde yok, sadece gerektiğinde çözülür
+    private Bitmap.CompressFormat compressFormat() {
+        if (this == WEBP_LOSSY && Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.JPEG;
+    }
+}
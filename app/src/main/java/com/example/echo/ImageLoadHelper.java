@@ -1,9 +1,12 @@
 package com.example.echo;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.signature.ObjectKey;
 
@@ -16,16 +19,15 @@ public class ImageLoadHelper {
                                         LocalImageManager localImageManager) {
         String profileImagePath = localImageManager.getProfileImagePath(userId);
 
-        if (profileImagePath != null && localImageManager.fileExists(profileImagePath)) {
-            File imageFile = new File(profileImagePath);
+        // Path ve değişiklik zamanı index'ten gelir, dosya sistemine dokunulmaz
+        // (disk bütçesi nedeniyle çıkarılmışsa varsayılan resim gösterilir)
+        if (profileImagePath != null && !localImageManager.isEvicted(profileImagePath)) {
+            long lastModified = localImageManager.getProfileImageLastModified(userId);
 
-            Glide.with(context)
-                    .load(imageFile)
+            load(context, profileImagePath, lastModified, imageView, localImageManager)
                     .circleCrop()
                     .placeholder(R.mipmap.ic_launcher)
                     .error(R.mipmap.ic_launcher)
-                    // ✨ ÖNEMLİ: Dosya değişiklik zamanını signature olarak kullan
-                    .signature(new ObjectKey(imageFile.lastModified()))
                     // ✨ Cache stratejisini ayarla
                     .diskCacheStrategy(DiskCacheStrategy.NONE)
                     .skipMemoryCache(false)
@@ -44,30 +46,66 @@ public class ImageLoadHelper {
                                       LocalImageManager localImageManager) {
         String coverImagePath = localImageManager.getCoverImagePath(userId);
 
-        if (coverImagePath != null && localImageManager.fileExists(coverImagePath)) {
-            File imageFile = new File(coverImagePath);
+        if (coverImagePath != null && !localImageManager.isEvicted(coverImagePath)) {
+            long lastModified = localImageManager.getCoverImageLastModified(userId);
 
-            Glide.with(context)
-                    .load(imageFile)
+            load(context, coverImagePath, lastModified, imageView, localImageManager)
                     .centerCrop()
-                    .signature(new ObjectKey(imageFile.lastModified()))
                     .diskCacheStrategy(DiskCacheStrategy.NONE)
                     .into(imageView);
         }
     }
 
     public static void loadPostImage(Context context, String imagePath, ImageView imageView) {
-        if (imagePath != null && !imagePath.isEmpty()) {
-            File imageFile = new File(imagePath);
-
-            if (imageFile.exists()) {
-                Glide.with(context)
-                        .load(imageFile)
-                        .centerCrop()
-                        .placeholder(R.color.background)
-                        .signature(new ObjectKey(imageFile.lastModified()))
-                        .into(imageView);
-            }
+        LocalImageManager localImageManager = LocalImageManager.getInstance(context);
+        if (localImageManager.fileExists(imagePath)) {
+            load(context, imagePath, localImageManager.getImageSignature(imagePath), imageView, localImageManager)
+                    .centerCrop()
+                    .placeholder(R.color.background)
+                    .into(imageView);
+        } else if (localImageManager.isEvicted(imagePath)) {
+            // Disk bütçesi nedeniyle çıkarıldı: placeholder göster
+            Glide.with(context).clear(imageView);
+            imageView.setImageResource(R.color.background);
+        }
+    }
+
+    /**
+     * ImageView boyutunu karşılayan en küçük çözünürlüğü yükleyen istek oluştur.
+     * Küçük dosya okunamazsa FULL dosyaya düşer.
+     * ✨ ÖNEMLİ: Cache anahtarı dosya path'i + signature'dır (değişiklik zamanı veya blob path'i);
+     * görsel değişince path'i de değiştiği için eski girdiler bir daha eşleşmez
+     */
+    private static RequestBuilder<Drawable> load(Context context, String fullPath,
+                                                 Object signatureKey, ImageView imageView,
+                                                 LocalImageManager localImageManager) {
+        String path = localImageManager.getBestRenditionPath(fullPath, targetSize(imageView));
+        localImageManager.recordAccess(fullPath); // LRU eviction için
+        ObjectKey signature = new ObjectKey(signatureKey);
+
+        RequestBuilder<Drawable> request = Glide.with(context)
+                .load(new File(path))
+                .signature(signature);
+
+        if (!path.equals(fullPath)) {
+            request = request.error(Glide.with(context)
+                    .load(new File(fullPath))
+                    .signature(signature));
+        }
+        return request;
+    }
+
+    /**
+     * ImageView'in hedef boyutu (piksel). Henüz ölçülmediyse sabit layout boyutlarına bakılır,
+     * onlar da yoksa 0 döner
+     */
+    private static int targetSize(ImageView imageView) {
+        int size = Math.max(imageView.getWidth(), imageView.getHeight());
+
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        if (size <= 0 && params != null && params.width > 0 && params.height > 0) {
+            size = Math.max(params.width, params.height);
         }
+        return size;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,17 @@
 package com.example.echo;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class LikeManager {
@@ -13,9 +20,18 @@ public class LikeManager {
     private static final String COLLECTION_LIKES = "likes";
     private static final String COLLECTION_POSTS = "posts";
     private static final String COLLECTION_COMMENTS = "comments";
+    private static final long COALESCE_WINDOW_MS = 400; // Ardışık dokunuşları birleştirme penceresi
+    // Özet güncellemesi başarısız olursa tekrar deneme gecikmeleri (çekişme genelde kısa sürer)
+    private static final long[] ROLLUP_RETRY_DELAYS_MS = {2_000, 10_000, 60_000};
+
+    // Sayı bilinmiyorsa (net değişim olmadıysa) callback'e bu değer gider
+    public static final int UNKNOWN_COUNT = -1;
+
     private final FirebaseFirestore db;
     private final String currentUserId;
     private final NotificationManager notificationManager; // ✨ YENİ
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, PendingLike> pendingLikes = new HashMap<>();
 
     public LikeManager(FirebaseFirestore db, String currentUserId) {
         this.db = db;
@@ -28,17 +44,12 @@ public class LikeManager {
      */
     public void togglePostLike(String postId, boolean isCurrentlyLiked, OnLikeCallback callback) {
         if (currentUserId == null) {
-            callback.onFailure("Kullanıcı oturumu bulunamadı");
+            callback.onFailure("Kullanıcı oturumu bulunamadı", isCurrentlyLiked);
             return;
         }
 
-        if (isCurrentlyLiked) {
-            // Beğeniyi kaldır
-            unlikeTarget(postId, "post", COLLECTION_POSTS, callback);
-        } else {
-            // Beğen
-            likeTarget(postId, "post", COLLECTION_POSTS, callback);
-        }
+        // Beğen veya beğeniyi kaldır (ardışık dokunuşlar tek yazmaya indirgenir)
+        requestLike(postId, "post", COLLECTION_POSTS, isCurrentlyLiked, callback);
     }
 
     /**
@@ -46,148 +57,284 @@ public class LikeManager {
      */
     public void toggleCommentLike(String commentId, boolean isCurrentlyLiked, OnLikeCallback callback) {
         if (currentUserId == null) {
-            callback.onFailure("Kullanıcı oturumu bulunamadı");
+            callback.onFailure("Kullanıcı oturumu bulunamadı", isCurrentlyLiked);
             return;
         }
 
-        if (isCurrentlyLiked) {
-            // Beğeniyi kaldır
-            unlikeTarget(commentId, "comment", COLLECTION_COMMENTS, callback);
-        } else {
-            // Beğen
-            likeTarget(commentId, "comment", COLLECTION_COMMENTS, callback);
-        }
+        // Beğen veya beğeniyi kaldır (ardışık dokunuşlar tek yazmaya indirgenir)
+        requestLike(commentId, "comment", COLLECTION_COMMENTS, isCurrentlyLiked, callback);
     }
 
     /**
-     * Beğeni ekle (Generic)
-     * ✨ BİLDİRİM OLUŞTURMA EKLENDİ
+     * Dokunuşu hedef başına kuyruğa al
+     * Pencere içindeki tüm dokunuşlar tek bir net duruma indirgenir; net değişim yoksa
+     * backend'e hiç yazılmaz. Son dokunuşun callback'i sonucu alır; hata durumunda
+     * backend'de onaylanmış son durum bildirilir (ara dokunuşların öncesi değil).
      */
-    private void likeTarget(String targetId, String targetType, String targetCollection, OnLikeCallback callback) {
-        // 1. Likes collection'a ekle
-        Map<String, Object> likeData = new HashMap<>();
-        likeData.put("userId", currentUserId);
-        likeData.put("targetId", targetId);
-        likeData.put("targetType", targetType);
-        likeData.put("timestamp", FieldValue.serverTimestamp());
+    private void requestLike(String targetId, String targetType, String targetCollection,
+                             boolean isCurrentlyLiked, OnLikeCallback callback) {
+        String key = targetType + ":" + targetId;
+        PendingLike pending = pendingLikes.get(key);
+        if (pending == null) {
+            pending = new PendingLike(key, targetId, targetType, targetCollection, isCurrentlyLiked);
+            pendingLikes.put(key, pending);
+        }
 
-        db.collection(COLLECTION_LIKES)
-                .add(likeData)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "Like eklendi: " + documentReference.getId());
+        pending.desiredLiked = !isCurrentlyLiked;
+        pending.callback = callback;
 
-                    // 2. Target'in likeCount'unu artır
-                    db.collection(targetCollection)
-                            .document(targetId)
-                            .update("likeCount", FieldValue.increment(1))
-                            .addOnSuccessListener(aVoid -> {
-                                Log.d(TAG, "likeCount artırıldı");
+        // Yazma sürüyorsa bitince tekrar değerlendirilir
+        if (!pending.inFlight) {
+            mainHandler.removeCallbacks(pending.flush);
+            mainHandler.postDelayed(pending.flush, COALESCE_WINDOW_MS);
+        }
+    }
 
-                                // ✨ 3. BİLDİRİM OLUŞTUR
-                                createLikeNotification(targetId, targetType, targetCollection);
+    private void flushPendingLike(PendingLike pending) {
+        if (pending.desiredLiked == pending.confirmedLiked) {
+            // Net değişim yok, yazma gerekmiyor
+            pendingLikes.remove(pending.key);
+            pending.callback.onSuccess(pending.confirmedLiked, UNKNOWN_COUNT);
+            return;
+        }
 
-                                callback.onSuccess(true);
-                            })
-                            .addOnFailureListener(e -> {
-                                Log.e(TAG, "likeCount artırılamadı", e);
-                                callback.onFailure(e.getMessage());
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Like eklenemedi", e);
-                    callback.onFailure(e.getMessage());
+        pending.inFlight = true;
+        setLiked(pending.targetId, pending.targetType, pending.targetCollection, pending.desiredLiked,
+                new OnLikeCallback() {
+                    @Override
+                    public void onSuccess(boolean isNowLiked, int likeCount) {
+                        pending.inFlight = false;
+                        pending.confirmedLiked = isNowLiked;
+
+                        if (pending.desiredLiked != pending.confirmedLiked) {
+                            // Yazma sürerken kullanıcı tekrar dokundu
+                            mainHandler.postDelayed(pending.flush, COALESCE_WINDOW_MS);
+                            return;
+                        }
+
+                        pendingLikes.remove(pending.key);
+                        LikeStatusResolver.getInstance().setLiked(
+                                currentUserId, pending.targetType, pending.targetId, isNowLiked);
+                        pending.callback.onSuccess(isNowLiked, likeCount);
+                    }
+
+                    @Override
+                    public void onFailure(String error, boolean confirmedLiked) {
+                        pending.inFlight = false;
+                        pendingLikes.remove(pending.key);
+                        LikeStatusResolver.getInstance().setLiked(
+                                currentUserId, pending.targetType, pending.targetId, pending.confirmedLiked);
+                        pending.callback.onFailure(error, pending.confirmedLiked);
+                    }
                 });
     }
 
     /**
-     * Beğeniyi kaldır (Generic)
-     * ✨ BİLDİRİM SİLME EKLENDİ
+     * Beğeni belgesinin deterministik ID'si: {userId}_{targetType}_{targetId}
+     * Beğen/beğeniyi kaldır/kontrol işlemleri tek belge üzerinden yapılır
+     */
+    public static String likeDocumentId(String userId, String targetType, String targetId) {
+        return userId + "_" + targetType + "_" + targetId;
+    }
+
+    private DocumentReference likeRef(String targetId, String targetType) {
+        return db.collection(COLLECTION_LIKES)
+                .document(likeDocumentId(currentUserId, targetType, targetId));
+    }
+
+    /**
+     * Beğeni durumunu ayarla (Generic)
+     * Like belgesi ve likeCount artışı tek transaction'da yazılır; böylece tek round trip
+     * yeterli olur ve likeCount gerçek beğeni sayısından kopmaz. Bildirim özeti commit'ten
+     * sonra ayrı yazılır, özet belgesindeki çekişme beğeniyi etkilemez
      */
-    private void unlikeTarget(String targetId, String targetType, String targetCollection, OnLikeCallback callback) {
-        // 1. Likes collection'dan sil
+    private void setLiked(String targetId, String targetType, String targetCollection,
+                          boolean like, OnLikeCallback callback) {
+        if (like || LikeMigration.isMigrated(currentUserId)) {
+            runLikeTransaction(targetId, targetType, targetCollection, like,
+                    new ArrayList<>(), callback);
+            return;
+        }
+
+        // Taşıma bitmediyse beğeni eski rastgele ID ile duruyor olabilir: önce bul,
+        // transaction sadece gerçekten bir beğeni silinirse sayacı azaltır
         db.collection(COLLECTION_LIKES)
                 .whereEqualTo("userId", currentUserId)
                 .whereEqualTo("targetId", targetId)
                 .whereEqualTo("targetType", targetType)
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        Log.w(TAG, "Silinecek like bulunamadı");
-                        callback.onFailure("Beğeni bulunamadı");
-                        return;
-                    }
-
+                    List<DocumentReference> legacyRefs = new ArrayList<>();
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        document.getReference().delete()
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "Like silindi: " + document.getId());
-
-                                    // 2. Target'in likeCount'unu azalt
-                                    db.collection(targetCollection)
-                                            .document(targetId)
-                                            .update("likeCount", FieldValue.increment(-1))
-                                            .addOnSuccessListener(aVoid2 -> {
-                                                Log.d(TAG, "likeCount azaltıldı");
-
-                                                // ✨ 3. BİLDİRİMİ SİL
-                                                deleteLikeNotification(targetId, targetType, targetCollection);
-
-                                                callback.onSuccess(false);
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                Log.e(TAG, "likeCount azaltılamadı", e);
-                                                callback.onFailure(e.getMessage());
-                                            });
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Like silinemedi", e);
-                                    callback.onFailure(e.getMessage());
-                                });
+                        legacyRefs.add(document.getReference());
                     }
+                    runLikeTransaction(targetId, targetType, targetCollection, false,
+                            legacyRefs, callback);
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Like sorgusu başarısız", e);
-                    callback.onFailure(e.getMessage());
+                    Log.e(TAG, "Eski like sorgusu başarısız", e);
+                    callback.onFailure(e.getMessage(), !like); // Durum değişmedi
                 });
     }
 
+    private void runLikeTransaction(String targetId, String targetType, String targetCollection,
+                                    boolean like, List<DocumentReference> legacyRefs,
+                                    OnLikeCallback callback) {
+        DocumentReference likeRef = likeRef(targetId, targetType);
+        DocumentReference targetRef = db.collection(targetCollection).document(targetId);
+
+        db.runTransaction(transaction -> {
+            // 1. Tüm okumalar yazmalardan önce yapılmalı
+            DocumentSnapshot likeDoc = transaction.get(likeRef);
+            DocumentSnapshot targetDoc = transaction.get(targetRef);
+            List<DocumentReference> existingLegacyRefs = new ArrayList<>();
+            for (DocumentReference legacyRef : legacyRefs) {
+                if (transaction.get(legacyRef).exists()) {
+                    existingLegacyRefs.add(legacyRef);
+                }
+            }
+            if (!targetDoc.exists()) {
+                throw new FirebaseFirestoreException("Hedef bulunamadı",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+
+            LikeResult result = new LikeResult();
+            result.sharded = COLLECTION_POSTS.equals(targetCollection);
+            result.ownerId = targetDoc.getString("userId");
+            result.postId = targetDoc.getString("postId");
+            Long likeCount = targetDoc.getLong("likeCount");
+            result.likeCount = likeCount != null ? likeCount : 0;
+
+            // Zaten istenen durumdaysa hiçbir şey yazma (çift tıklama güvenli)
+            // Geri almada beğeni yeni veya eski ID'li belgelerden birinde bulunmalı
+            boolean alreadyInState = like ? likeDoc.exists()
+                    : !likeDoc.exists() && existingLegacyRefs.isEmpty();
+            if (alreadyInState) {
+                return result;
+            }
+
+            // 2. Like belgesi
+            if (like) {
+                Map<String, Object> likeData = new HashMap<>();
+                likeData.put("userId", currentUserId);
+                likeData.put("targetId", targetId);
+                likeData.put("targetType", targetType);
+                likeData.put("timestamp", FieldValue.serverTimestamp());
+                transaction.set(likeRef, likeData);
+            } else {
+                transaction.delete(likeRef);
+                // Çift tıklamadan kalan kopyalar dahil eski belgeler de silinir (tek beğeni sayılır)
+                for (DocumentReference legacyRef : existingLegacyRefs) {
+                    transaction.delete(legacyRef);
+                }
+            }
+
+            // 3. Target'in likeCount'u (post beğenileri sıcak belgeye değil shard'lara yazılır)
+            if (result.sharded) {
+                ShardedCounter.increment(transaction, targetRef, "likeCount", like ? 1 : -1);
+            } else {
+                transaction.update(targetRef, "likeCount", FieldValue.increment(like ? 1 : -1));
+            }
+
+            result.changed = true;
+            return result;
+        }).addOnSuccessListener(result -> {
+            Log.d(TAG, (like ? "Like eklendi: " : "Like silindi: ") + likeRef.getId());
+
+            if (result.changed) {
+                updateLikeNotification(targetId, targetType, like, result);
+            }
+
+            // Transaction'ın okuduğu sayı + değişim: ekstra okuma gerekmez
+            int delta = result.changed ? (like ? 1 : -1) : 0;
+            int likeCount;
+            if (!result.sharded) {
+                likeCount = (int) Math.max(0, result.likeCount + delta);
+            } else if (ShardedCounter.hasFreshSums(targetRef, "likeCount")) {
+                ShardedCounter.applyLocalDelta(targetRef, "likeCount", delta);
+                likeCount = (int) Math.max(0, result.likeCount
+                        + ShardedCounter.getCachedSum(targetRef, "likeCount"));
+            } else {
+                // Shard toplamı bilinmiyor, optimistic sayı korunur
+                likeCount = UNKNOWN_COUNT;
+            }
+            callback.onSuccess(like, likeCount);
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, like ? "Like eklenemedi" : "Like silinemedi", e);
+            callback.onFailure(e.getMessage(), !like); // Durum değişmedi
+        });
+    }
+
     /**
-     * ✨ YENİ: Beğeni bildirimi oluştur
+     * Beğeni bildirim özetini güncelle (başarısızlıkta writeLikeNotification tekrar dener)
      */
-    private void createLikeNotification(String targetId, String targetType, String targetCollection) {
-        // Önce target'ın sahibini bul
-        db.collection(targetCollection)
-                .document(targetId)
+    private void updateLikeNotification(String targetId, String targetType, boolean like,
+                                        LikeResult result) {
+        if (result.ownerId == null || result.ownerId.equals(currentUserId)) {
+            return;
+        }
+
+        // Bildirim post'a yönlendirir: yorum beğenisinde targetId yorumun post'u
+        String notificationTargetId = "post".equals(targetType) ? targetId : result.postId;
+        if (!like) {
+            writeLikeNotification(targetId, targetType, false, result, notificationTargetId, null, null, 0);
+            return;
+        }
+
+        // Gönderen bilgisi cache'te yoksa kullanıcı belgesini oku
+        UserProfileCache.Profile profile = UserProfileCache.getInstance().get(currentUserId);
+        if (profile != null) {
+            writeLikeNotification(targetId, targetType, true, result, notificationTargetId,
+                    profile.getFullName(), profile.getUsertag(), 0);
+            return;
+        }
+
+        db.collection("users").document(currentUserId)
                 .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        String ownerId = documentSnapshot.getString("userId");
+                .addOnSuccessListener(userDoc -> {
+                    String senderName = userDoc.getString("fullName");
+                    String senderUsertag = userDoc.getString("usertag");
+                    UserProfileCache.getInstance().put(currentUserId, senderName, senderUsertag);
+                    writeLikeNotification(targetId, targetType, true, result, notificationTargetId,
+                            senderName, senderUsertag, 0);
+                })
+                .addOnFailureListener(e -> {
+                    // Özet yine yazılır (sayı doğru kalsın); gönderen adı boş görünür
+                    Log.e(TAG, "Gönderen bilgisi alınamadı", e);
+                    writeLikeNotification(targetId, targetType, true, result, notificationTargetId,
+                            null, null, 0);
+                });
+    }
 
-                        // Kendi içeriğini beğendiyse bildirim gönderme
-                        if (ownerId == null || ownerId.equals(currentUserId)) {
-                            return;
-                        }
+    /**
+     * Özeti yaz; başarısız olursa artan gecikmelerle tekrar dene. Özet transaction'ı beğeni
+     * belgesinin güncel durumunu kontrol ettiği için tekrar deneme güvenlidir; vazgeçilirse
+     * count kayabilir (unreadCount reconcileUnreadCount ile düzelir)
+     */
+    private void writeLikeNotification(String targetId, String targetType, boolean like,
+                                       LikeResult result, String notificationTargetId,
+                                       String senderName, String senderUsertag, int attempt) {
+        notificationManager.updateLikeRollup(targetType, targetId, result.ownerId, like,
+                        notificationTargetId, senderName, senderUsertag)
+                .addOnSuccessListener(legacyNotificationsPossible -> {
+                    if (!like) {
+                        // Özetten önceki tekil bildirimler (alıcınınkiler henüz taşınmadıysa)
+                        deleteLikeNotification(targetId, targetType, result.ownerId, result.postId,
+                                legacyNotificationsPossible);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (attempt < ROLLUP_RETRY_DELAYS_MS.length) {
+                        Log.w(TAG, "Beğeni bildirimi güncellenemedi, tekrar denenecek", e);
+                        mainHandler.postDelayed(() -> writeLikeNotification(targetId, targetType, like,
+                                result, notificationTargetId, senderName, senderUsertag, attempt + 1),
+                                ROLLUP_RETRY_DELAYS_MS[attempt]);
+                        return;
+                    }
 
-                        // Kullanıcı bilgilerini al
-                        db.collection("users").document(currentUserId)
-                                .get()
-                                .addOnSuccessListener(userDoc -> {
-                                    String senderName = userDoc.getString("fullName");
-                                    String senderUsertag = userDoc.getString("usertag");
-
-                                    // Bildirim türüne göre oluştur
-                                    if ("post".equals(targetType)) {
-                                        notificationManager.createLikePostNotification(
-                                                targetId, ownerId, senderName, senderUsertag
-                                        );
-                                    } else if ("comment".equals(targetType)) {
-                                        // Comment için postId'yi bul
-                                        String postId = documentSnapshot.getString("postId");
-                                        notificationManager.createLikeCommentNotification(
-                                                targetId, ownerId, postId, senderName, senderUsertag
-                                        );
-                                    }
-                                });
+                    Log.e(TAG, "Beğeni bildirimi güncellenemedi", e);
+                    if (!like) {
+                        deleteLikeNotification(targetId, targetType, result.ownerId, result.postId, true);
                     }
                 });
     }
@@ -195,27 +342,20 @@ public class LikeManager {
     /**
      * ✨ YENİ: Beğeni bildirimini sil
      */
-    private void deleteLikeNotification(String targetId, String targetType, String targetCollection) {
-        db.collection(targetCollection)
-                .document(targetId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        String ownerId = documentSnapshot.getString("userId");
-
-                        if (ownerId == null || ownerId.equals(currentUserId)) {
-                            return;
-                        }
+    private void deleteLikeNotification(String targetId, String targetType, String ownerId, String postId,
+                                        boolean legacyNotificationsPossible) {
+        if (ownerId == null || ownerId.equals(currentUserId)) {
+            return;
+        }
 
-                        // Bildirim türüne göre sil
-                        if ("post".equals(targetType)) {
-                            notificationManager.deleteLikePostNotification(targetId, ownerId);
-                        } else if ("comment".equals(targetType)) {
-                            String postId = documentSnapshot.getString("postId");
-                            notificationManager.deleteLikeCommentNotification(targetId, ownerId, postId);
-                        }
-                    }
-                });
+        // Bildirim türüne göre sil
+        // Taşınmış kutuda post beğenileri tamamen özettedir; yorum beğenisi tekil belgesi
+        // (eski şemada yorum ID'si tutulmadığı için) deterministik anahtarla silinir
+        if ("post".equals(targetType) && legacyNotificationsPossible) {
+            notificationManager.deleteLikePostNotification(targetId, ownerId);
+        } else if ("comment".equals(targetType)) {
+            notificationManager.deleteLikeCommentNotification(targetId, ownerId, postId);
+        }
     }
 
     /**
@@ -241,15 +381,28 @@ public class LikeManager {
             return;
         }
 
-        db.collection(COLLECTION_LIKES)
-                .whereEqualTo("userId", currentUserId)
-                .whereEqualTo("targetId", targetId)
-                .whereEqualTo("targetType", targetType)
-                .limit(1)
+        likeRef(targetId, targetType)
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    boolean isLiked = !queryDocumentSnapshots.isEmpty();
-                    callback.onResult(isLiked);
+                .addOnSuccessListener(documentSnapshot -> {
+                    if (documentSnapshot.exists() || LikeMigration.isMigrated(currentUserId)) {
+                        callback.onResult(documentSnapshot.exists());
+                        return;
+                    }
+
+                    // Taşıma tamamlanmadıysa eski rastgele ID'li belgelere bak
+                    db.collection(COLLECTION_LIKES)
+                            .whereEqualTo("userId", currentUserId)
+                            .whereEqualTo("targetId", targetId)
+                            .whereEqualTo("targetType", targetType)
+                            .limit(1)
+                            .get()
+                            .addOnSuccessListener(queryDocumentSnapshots -> {
+                                callback.onResult(!queryDocumentSnapshots.isEmpty());
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Like durumu kontrol edilemedi", e);
+                                callback.onResult(false);
+                            });
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Like durumu kontrol edilemedi", e);
@@ -257,10 +410,41 @@ public class LikeManager {
                 });
     }
 
+    // Hedef başına bekleyen beğeni değişikliği
+    private class PendingLike {
+        final String key;
+        final String targetId;
+        final String targetType;
+        final String targetCollection;
+        final Runnable flush = () -> flushPendingLike(this);
+        boolean confirmedLiked; // Backend'de bilinen son durum
+        boolean desiredLiked;   // Kullanıcının son istediği durum
+        boolean inFlight;
+        OnLikeCallback callback;
+
+        PendingLike(String key, String targetId, String targetType, String targetCollection,
+                    boolean confirmedLiked) {
+            this.key = key;
+            this.targetId = targetId;
+            this.targetType = targetType;
+            this.targetCollection = targetCollection;
+            this.confirmedLiked = confirmedLiked;
+        }
+    }
+
+    // Transaction sonucu
+    private static class LikeResult {
+        boolean changed;
+        String ownerId;
+        String postId;
+        long likeCount; // Parent belgedeki taban değer
+        boolean sharded;
+    }
+
     // Callback Interfaces
     public interface OnLikeCallback {
-        void onSuccess(boolean isNowLiked);
-        void onFailure(String error);
+        void onSuccess(boolean isNowLiked, int likeCount);
+        void onFailure(String error, boolean confirmedLiked); // confirmedLiked: backend'deki son durum
     }
 
     public interface OnLikeCheckCallback {
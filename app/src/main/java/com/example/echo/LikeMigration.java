@@ -0,0 +1,99 @@
+package com.example.echo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Beğeni Belgesi Taşıma
+ * Eski rastgele ID'li beğeni belgelerini {userId}_{targetType}_{targetId} anahtarına taşır.
+ * Kullanıcı başına bir kez çalışır, sonuç SharedPreferences'ta saklanır.
+ */
+public class LikeMigration {
+
+    private static final String TAG = "LikeMigration";
+    private static final String PREFS_NAME = "LikeMigrationPrefs";
+    private static final String COLLECTION_LIKES = "likes";
+    private static final int BATCH_PAIRS = 200; // Her batch'te 200 set + 200 delete
+
+    private static volatile String migratedUserId;
+
+    /**
+     * Kullanıcının beğenileri yeni anahtar şemasına taşındı mı?
+     */
+    public static boolean isMigrated(String userId) {
+        return userId != null && userId.equals(migratedUserId);
+    }
+
+    /**
+     * Gerekliyse kullanıcının beğenilerini taşı
+     */
+    public static void runIfNeeded(Context context, FirebaseFirestore db, String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean("migrated_" + userId, false)) {
+            migratedUserId = userId;
+            return;
+        }
+
+        db.collection(COLLECTION_LIKES)
+                .whereEqualTo("userId", userId)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    List<DocumentSnapshot> legacyDocs = new ArrayList<>();
+                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
+                        String expectedId = LikeManager.likeDocumentId(userId,
+                                document.getString("targetType"), document.getString("targetId"));
+                        if (!document.getId().equals(expectedId)) {
+                            legacyDocs.add(document);
+                        }
+                    }
+
+                    List<Task<Void>> commits = new ArrayList<>();
+                    for (int i = 0; i < legacyDocs.size(); i += BATCH_PAIRS) {
+                        WriteBatch batch = db.batch();
+                        for (DocumentSnapshot document : legacyDocs.subList(i,
+                                Math.min(i + BATCH_PAIRS, legacyDocs.size()))) {
+                            Map<String, Object> data = document.getData();
+                            DocumentReference newRef = db.collection(COLLECTION_LIKES).document(
+                                    LikeManager.likeDocumentId(userId,
+                                            document.getString("targetType"),
+                                            document.getString("targetId")));
+
+                            // Çift tıklamadan kalan kopyalar aynı anahtara düşer, tek belge kalır
+                            if (data != null) {
+                                batch.set(newRef, data);
+                            }
+                            batch.delete(document.getReference());
+                        }
+                        commits.add(batch.commit());
+                    }
+
+                    Tasks.whenAll(commits)
+                            .addOnSuccessListener(aVoid -> {
+                                prefs.edit().putBoolean("migrated_" + userId, true).apply();
+                                migratedUserId = userId;
+                                Log.d(TAG, legacyDocs.size() + " beğeni taşındı");
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e(TAG, "Beğeni taşıma başarısız", e);
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Beğeni taşıma sorgusu başarısız", e);
+                });
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.echo;
+
+import android.util.Log;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Toplu Beğeni Durumu Çözümleyici
+ * Bir sayfadaki hedeflerin beğeni durumlarını whereIn parçalarıyla tek seferde sorgular,
+ * sonuçları bellekte tutar ve bind sırasında senkron olarak döndürür.
+ * Sadece main thread'den kullanılır.
+ */
+public class LikeStatusResolver {
+
+    private static final String TAG = "LikeStatusResolver";
+    private static final String COLLECTION_LIKES = "likes";
+    private static final int WHERE_IN_LIMIT = 10; // whereIn parça boyutu
+
+    private static LikeStatusResolver instance;
+
+    private final Map<String, Boolean> cache = new HashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+    // Anahtar -> son yerel yazımın sırası; sorgu sırasında yapılan dokunuşu sonuç ezmesin
+    private final Map<String, Long> writeEpochs = new HashMap<>();
+    private long writeEpoch;
+    private String cachedUserId;
+
+    private LikeStatusResolver() {
+    }
+
+    public static synchronized LikeStatusResolver getInstance() {
+        if (instance == null) {
+            instance = new LikeStatusResolver();
+        }
+        return instance;
+    }
+
+    /**
+     * Cache'teki beğeni durumunu döndür (bilinmiyorsa null)
+     */
+    public Boolean getCached(String userId, String targetType, String targetId) {
+        ensureUser(userId);
+        return cache.get(key(targetType, targetId));
+    }
+
+    /**
+     * Beğeni/beğeni kaldırma sonrası cache'i güncelle
+     */
+    public void setLiked(String userId, String targetType, String targetId, boolean isLiked) {
+        ensureUser(userId);
+        String key = key(targetType, targetId);
+        cache.put(key, isLiked);
+        writeEpochs.put(key, ++writeEpoch);
+    }
+
+    /**
+     * Cache'te olmayan hedeflerin beğeni durumunu toplu olarak çöz
+     */
+    public void resolve(FirebaseFirestore db, String userId, String targetType,
+                        Collection<String> targetIds, OnResolvedCallback callback) {
+        if (userId == null) {
+            return;
+        }
+        ensureUser(userId);
+
+        List<String> unresolved = new ArrayList<>();
+        for (String targetId : targetIds) {
+            String key = key(targetType, targetId);
+            if (targetId != null && !cache.containsKey(key) && !inFlight.contains(key)) {
+                unresolved.add(targetId);
+                inFlight.add(key);
+            }
+        }
+
+        for (int i = 0; i < unresolved.size(); i += WHERE_IN_LIMIT) {
+            List<String> chunk = new ArrayList<>(
+                    unresolved.subList(i, Math.min(i + WHERE_IN_LIMIT, unresolved.size())));
+            resolveChunk(db, userId, targetType, chunk, callback);
+        }
+    }
+
+    private void resolveChunk(FirebaseFirestore db, String userId, String targetType,
+                              List<String> chunk, OnResolvedCallback callback) {
+        long requestEpoch = writeEpoch;
+        db.collection(COLLECTION_LIKES)
+                .whereEqualTo("userId", userId)
+                .whereEqualTo("targetType", targetType)
+                .whereIn("targetId", chunk)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    for (String targetId : chunk) {
+                        inFlight.remove(key(targetType, targetId));
+                    }
+                    // Bu arada kullanıcı değiştiyse sonucu yok say
+                    if (!userId.equals(cachedUserId)) {
+                        return;
+                    }
+
+                    Set<String> likedIds = new HashSet<>();
+                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
+                        likedIds.add(document.getString("targetId"));
+                    }
+                    for (String targetId : chunk) {
+                        String key = key(targetType, targetId);
+                        // Sorgu gönderildikten sonra yerelde değiştiyse yerel değer daha yenidir
+                        Long writtenAt = writeEpochs.get(key);
+                        if (writtenAt != null && writtenAt > requestEpoch) continue;
+                        cache.put(key, likedIds.contains(targetId));
+                    }
+
+                    callback.onResolved(chunk);
+                })
+                .addOnFailureListener(e -> {
+                    for (String targetId : chunk) {
+                        inFlight.remove(key(targetType, targetId));
+                    }
+                    Log.e(TAG, "Beğeni durumları çözülemedi", e);
+                });
+    }
+
+    private void ensureUser(String userId) {
+        if (userId != null && !userId.equals(cachedUserId)) {
+            cache.clear();
+            inFlight.clear();
+            writeEpochs.clear();
+            cachedUserId = userId;
+        }
+    }
+
+    private static String key(String targetType, String targetId) {
+        return targetType + ":" + targetId;
+    }
+
+    // Callback Interface
+    public interface OnResolvedCallback {
+        void onResolved(Collection<String> targetIds);
+    }
+}
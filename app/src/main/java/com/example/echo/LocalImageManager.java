@@ -5,178 +5,526 @@ import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
-import com.bumptech.glide.Glide;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Local Görsel Yönetim Sistemi
- * Görselleri cihazın internal storage'ına kaydeder
+ * Görselleri cihazın internal storage'ına kaydeder.
+ * Tek örnek olarak kullanılır; profil/cover path'leri ve dosya değişiklik zamanları
+ * bellekteki bir index'te tutulur, böylece bind sırasında SharedPreferences
+ * okuması ve File.exists() çağrısı yapılmaz.
+ * Yeni görseller ImageBlobStore'a içerik özetiyle kaydedilir; aynı görsel bir kez saklanır.
+ * Depo, ayarlanabilir bir disk bütçesini son erişime göre LRU eviction ile korur.
  */
 public class LocalImageManager {
 
     private static final String TAG = "LocalImageManager";
     private static final String PREFS_NAME = "ImagePrefs";
     private static final int MAX_IMAGE_SIZE = 1024; // 1024x1024 max
-    private static final int COMPRESSION_QUALITY = 85; // %85 kalite
+    private static final String STORE_PREFS_NAME = "ImageStorePrefs";
+    private static final long DEFAULT_DISK_BUDGET_BYTES = 100L * 1024 * 1024; // 100 MB
+    private static final long ACCESS_FLUSH_DELAY_MS = 10_000;
+    private static final long GC_INTERVAL_MS = 24 * 60 * 60 * 1000L; // Günde bir
+    private static final int WHERE_IN_LIMIT = 10;
+
+    /**
+     * Her görsel için tek geçişte üretilen çözünürlükler (en uzun kenar, piksel)
+     * Asıl path FULL dosyasıdır, diğerleri ona sonek eklenerek türetilir
+     */
+    public enum Rendition {
+        AVATAR(192, "_avatar"),
+        FEED(720, "_feed"),
+        FULL(MAX_IMAGE_SIZE, "");
+
+        public final int maxSize;
+        final String suffix;
+
+        Rendition(int maxSize, String suffix) {
+            this.maxSize = maxSize;
+            this.suffix = suffix;
+        }
+    }
+
+    private static LocalImageManager instance;
+
+    // Decode/encode işleri UI thread'i yerine bu tek thread'li executor'da çalışır
+    private static final ExecutorService imageExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private final Context context;
     private final SharedPreferences prefs;
+    private final ImageBlobStore blobStore;
+
+    // "profile_{userId}" / "cover_{userId}" -> görsel bilgisi
+    private final Map<String, ImageEntry> index = new ConcurrentHashMap<>();
+    // Index dışındaki dosyalar (post görselleri) için path -> lastModified (0 = dosya yok)
+    private final Map<String, Long> fileStats = new ConcurrentHashMap<>();
+    private volatile boolean fileStatsScanned = false; // Açılış taraması bitti mi
+    private boolean accessFlushScheduled = false; // Sadece main thread
+    private volatile ImageEncoder encoder = ImageEncoder.forDevice();
+
+    private LocalImageManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.blobStore = new ImageBlobStore(this.context.getFilesDir());
+        loadIndex();
+        imageExecutor.execute(this::scanFileStats);
+    }
 
-    public LocalImageManager(Context context) {
-        this.context = context;
-        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    public static synchronized LocalImageManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalImageManager(context);
+        }
+        return instance;
     }
 
     /**
-     * Profil fotoğrafı kaydet ve cache'i temizle
+     * SharedPreferences'taki path'leri bir kez oku ve dosya bilgilerini index'e al
      */
-    public String saveProfileImage(String userId, Uri imageUri) {
-        // Eski fotoğrafı sil
-        String oldPath = getProfileImagePath(userId);
-        if (oldPath != null) {
-            deleteImage(oldPath);
+    private void loadIndex() {
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            if (!(entry.getValue() instanceof String)) continue;
+
+            File file = new File((String) entry.getValue());
+            if (file.exists()) {
+                index.put(entry.getKey(), new ImageEntry(file.getAbsolutePath(), file.lastModified()));
+                fileStats.put(file.getAbsolutePath(), file.lastModified());
+            }
         }
+        Log.d(TAG, "Görsel index'i yüklendi: " + index.size());
+    }
 
-        String fileName = "profile_" + userId + "_" + System.currentTimeMillis() + ".jpg";
-        String filePath = saveImageToInternalStorage(imageUri, fileName);
-
-        if (filePath != null) {
-            // Path'i SharedPreferences'a kaydet
-            prefs.edit().putString("profile_" + userId, filePath).apply();
+    /**
+     * Görsel klasörlerindeki dosyaların değişiklik zamanlarını bir kez oku (arka plan thread'i)
+     * Bundan sonra fileStats'ta olmayan path yok sayılır; kayıt ve silme işlemleri
+     * fileStats'ı kendisi günceller, bind sırasında disk erişimi gerekmez
+     */
+    private void scanFileStats() {
+        int count = scanDirectory(context.getFilesDir(), true);
+        fileStatsScanned = true;
+        Log.d(TAG, "Dosya bilgileri tarandı: " + count);
+    }
 
-            // ✨ GLIDE CACHE'İ TEMİZLE
-            clearGlideCache(userId);
+    private int scanDirectory(File directory, boolean includeSubdirectories) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
 
-            Log.d(TAG, "Profil fotoğrafı kaydedildi: " + filePath);
+        int count = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (includeSubdirectories) {
+                    count += scanDirectory(file, false);
+                }
+            } else {
+                // Tarama sırasında kaydedilen/silinen dosyanın güncel bilgisini ezme
+                fileStats.putIfAbsent(file.getAbsolutePath(), file.lastModified());
+                count++;
+            }
         }
+        return count;
+    }
 
-        return filePath;
+    /**
+     * Kaydedilen görseli index'e ve SharedPreferences'a yaz
+     */
+    private void putIndexEntry(String key, String filePath) {
+        File file = new File(filePath);
+        long lastModified = file.lastModified();
+        index.put(key, new ImageEntry(filePath, lastModified));
+        fileStats.put(filePath, lastModified);
+        prefs.edit().putString(key, filePath).apply();
+    }
+
+    private void removeIndexEntry(String key) {
+        index.remove(key);
+        prefs.edit().remove(key).apply();
     }
 
     /**
-     * Cover fotoğrafı kaydet ve cache'i temizle
+     * Profil fotoğrafı kaydet (arka planda, sonuç main thread'de)
+     * Glide cache'i ayrıca temizlenmez: yeni görsel içerik adresli yeni bir path'e yazılır ve
+     * cache anahtarı path + değişiklik zamanıdır, eski girdiler bir daha eşleşmez, LRU ile düşer
      */
-    public String saveCoverImage(String userId, Uri imageUri) {
-        // Eski fotoğrafı sil
-        String oldPath = getCoverImagePath(userId);
-        if (oldPath != null) {
-            deleteImage(oldPath);
-        }
+    public void saveProfileImage(String userId, Uri imageUri, OnImageSavedCallback callback) {
+        saveAsync(() -> replaceUserImage("profile_" + userId, imageUri), filePath -> {
+            if (filePath != null) {
+                Log.d(TAG, "Profil fotoğrafı kaydedildi: " + filePath);
+            }
+            callback.onImageSaved(filePath);
+        });
+    }
+
+    /**
+     * Cover fotoğrafı kaydet (arka planda, sonuç main thread'de)
+     * Cache anahtarı için saveProfileImage'a bakın
+     */
+    public void saveCoverImage(String userId, Uri imageUri, OnImageSavedCallback callback) {
+        saveAsync(() -> replaceUserImage("cover_" + userId, imageUri), filePath -> {
+            if (filePath != null) {
+                Log.d(TAG, "Cover fotoğrafı kaydedildi: " + filePath);
+            }
+            callback.onImageSaved(filePath);
+        });
+    }
 
-        String fileName = "cover_" + userId + "_" + System.currentTimeMillis() + ".jpg";
-        String filePath = saveImageToInternalStorage(imageUri, fileName);
+    /**
+     * Post görseli kaydet (arka planda, sonuç main thread'de)
+     * Sahibi index'e yazılır; kullanıcının kendi görselleri disk bütçesi için çıkarılmaz
+     */
+    public void savePostImage(String postId, String ownerId, Uri imageUri, OnImageSavedCallback callback) {
+        saveAsync(() -> {
+            String filePath = saveImageBlob(imageUri, "post_" + postId, ownerId);
 
-        if (filePath != null) {
-            // Path'i SharedPreferences'a kaydet
-            prefs.edit().putString("cover_" + userId, filePath).apply();
+            if (filePath != null) {
+                Log.d(TAG, "Post görseli kaydedildi: " + filePath);
+            }
+            return filePath;
+        }, callback);
+    }
 
-            // ✨ GLIDE CACHE'İ TEMİZLE
-            clearGlideCache(userId);
+    /**
+     * Yeni görseli kaydet, başarılıysa index'i güncelle (arka plan thread'i)
+     * Eski blob'un referansı saveImageBlob'da bırakılır; eski şemadaki dosya burada silinir
+     */
+    private String replaceUserImage(String key, Uri imageUri) {
+        ImageEntry oldEntry = index.get(key);
 
-            Log.d(TAG, "Cover fotoğrafı kaydedildi: " + filePath);
+        String filePath = saveImageBlob(imageUri, key, null);
+        if (filePath == null) {
+            return null; // Eski görsel yerinde kalır
         }
 
+        // Path'i index'e ve SharedPreferences'a kaydet
+        putIndexEntry(key, filePath);
+
+        if (oldEntry != null && !blobStore.isBlobPath(oldEntry.path)) {
+            deleteImage(oldEntry.path);
+        }
         return filePath;
     }
 
     /**
-     * Post görseli kaydet
+     * Görseli içerik adresli depoya kaydet ve referansı ona bağla (arka plan thread'i)
+     * Aynı içerik daha önce kaydedildiyse decode/encode yapılmaz, mevcut blob paylaşılır
      */
-    public String savePostImage(String postId, Uri imageUri) {
-        String fileName = "post_" + postId + "_" + System.currentTimeMillis() + ".jpg";
-        String filePath = saveImageToInternalStorage(imageUri, fileName);
+    private String saveImageBlob(Uri imageUri, String ref, String ownerId) {
+        String hash;
+        try (InputStream inputStream = context.getContentResolver().openInputStream(imageUri)) {
+            if (inputStream == null) {
+                Log.e(TAG, "InputStream null");
+                return null;
+            }
+            hash = ImageBlobStore.sha256(inputStream);
+        } catch (IOException e) {
+            Log.e(TAG, "Görsel özeti hesaplanamadı", e);
+            return null;
+        }
+
+        String blobPath = blobStore.blobPath(hash);
+        File blobFile = new File(blobPath);
 
-        if (filePath != null) {
-            Log.d(TAG, "Post görseli kaydedildi: " + filePath);
+        if (blobStore.contains(hash) && blobFile.exists()) {
+            Log.d(TAG, "Aynı görsel zaten kayıtlı, tekrar yazılmadı: " + hash);
+        } else {
+            ImageEncoder currentEncoder = encoder;
+            blobPath = blobStore.blobPath(hash, currentEncoder);
+            blobFile = new File(blobPath);
+
+            if (!saveImageToInternalStorage(imageUri, blobFile, currentEncoder)) {
+                return null;
+            }
+            blobStore.addBlob(hash, totalFileSize(blobPath), currentEncoder);
+
+            // Bütçe aşıldıysa en uzun süredir kullanılmayanları çıkar (yeni blob hariç)
+            enforceDiskBudget(hash);
         }
+        fileStats.put(blobPath, blobFile.lastModified());
 
-        return filePath;
+        // Referans önceden başka bir blob'u gösteriyorsa ve o blob sahipsiz kaldıysa sil
+        String orphanPath = blobStore.addRef(hash, ref, ownerId);
+        if (orphanPath != null) {
+            deleteImage(orphanPath);
+        }
+        return blobPath;
     }
 
     /**
-     * Profil fotoğrafı path'ini al
+     * Kaydetme işini görsel executor'unda çalıştır, sonucu main thread'e ilet
+     */
+    private void saveAsync(Callable<String> task, OnImageSavedCallback callback) {
+        imageExecutor.execute(() -> {
+            String filePath;
+            try {
+                filePath = task.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Görsel kaydetme hatası", e);
+                filePath = null;
+            }
+
+            final String result = filePath;
+            mainHandler.post(() -> callback.onImageSaved(result));
+        });
+    }
+
+    /**
+     * Profil fotoğrafı path'ini al (index'ten, disk erişimi yok)
      */
     public String getProfileImagePath(String userId) {
-        return prefs.getString("profile_" + userId, null);
+        ImageEntry entry = index.get("profile_" + userId);
+        return entry != null ? entry.path : null;
     }
 
     /**
-     * Cover fotoğrafı path'ini al
+     * Cover fotoğrafı path'ini al (index'ten, disk erişimi yok)
      */
     public String getCoverImagePath(String userId) {
-        return prefs.getString("cover_" + userId, null);
+        ImageEntry entry = index.get("cover_" + userId);
+        return entry != null ? entry.path : null;
     }
 
     /**
-     * ✨ YENİ: Glide cache'ini temizle (profil fotoğrafı güncellendiğinde)
+     * Profil fotoğrafının değişiklik zamanı (Glide signature için, yoksa 0)
      */
-    public void clearGlideCache(String userId) {
-        try {
-            // Memory cache'i temizle (UI thread'de çalışır)
-            Glide.get(context).clearMemory();
-
-            // Disk cache'i temizle (arka planda çalışmalı)
-            new Thread(() -> {
-                try {
-                    Glide.get(context).clearDiskCache();
-                    Log.d(TAG, "Glide cache temizlendi: " + userId);
-                } catch (Exception e) {
-                    Log.e(TAG, "Disk cache temizleme hatası", e);
-                }
-            }).start();
+    public long getProfileImageLastModified(String userId) {
+        ImageEntry entry = index.get("profile_" + userId);
+        return entry != null ? entry.lastModified : 0;
+    }
+
+    /**
+     * Cover fotoğrafının değişiklik zamanı (Glide signature için, yoksa 0)
+     */
+    public long getCoverImageLastModified(String userId) {
+        ImageEntry entry = index.get("cover_" + userId);
+        return entry != null ? entry.lastModified : 0;
+    }
 
-        } catch (Exception e) {
-            Log.e(TAG, "Cache temizleme hatası", e);
+    /**
+     * Dosyanın değişiklik zamanı (bilinmiyorsa veya dosya yoksa 0)
+     * Sadece bellekten okunur; açılış taraması bitmeden bilinmeyen path'ler 0 döner
+     */
+    public long getLastModified(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return 0;
         }
+        Long cached = fileStats.get(filePath);
+        return cached != null ? cached : 0;
     }
 
     /**
-     * Görseli internal storage'a kaydet
+     * Post görseli için Glide signature anahtarı.
+     * Blob path'leri içerik adresli olduğundan path'in kendisi yeterlidir;
+     * eski şemadaki dosyalarda değişiklik zamanı kullanılır
      */
-    private String saveImageToInternalStorage(Uri imageUri, String fileName) {
+    public Object getImageSignature(String filePath) {
+        if (blobStore.isBlobPath(filePath)) {
+            return filePath;
+        }
+        return getLastModified(filePath);
+    }
+
+    /**
+     * Görseli internal storage'a kaydet (arka plan thread'inde çağrılmalı)
+     * Önce sadece boyutlar okunur, sonra inSampleSize ve yoğunluk ölçeklemesiyle
+     * doğrudan hedef boyuta yakın decode edilir; tam çözünürlüklü bitmap hiç oluşmaz
+     */
+    private boolean saveImageToInternalStorage(Uri imageUri, File imageFile, ImageEncoder imageEncoder) {
+        Bitmap decodedBitmap = null;
+        Bitmap resizedBitmap = null;
+
         try {
-            // 1. Uri'den InputStream al
-            InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) {
-                Log.e(TAG, "InputStream null");
-                return null;
+            // 1. Sadece boyutları oku (piksel belleği ayrılmaz)
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream boundsStream = context.getContentResolver().openInputStream(imageUri)) {
+                if (boundsStream == null) {
+                    Log.e(TAG, "InputStream null");
+                    return false;
+                }
+                BitmapFactory.decodeStream(boundsStream, null, options);
             }
 
-            // 2. Bitmap'e çevir
-            Bitmap originalBitmap = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                Log.e(TAG, "Görsel boyutları okunamadı");
+                return false;
+            }
 
-            if (originalBitmap == null) {
-                Log.e(TAG, "Bitmap decode edilemedi");
-                return null;
+            // 2. Hedef boyuta göre alt örnekleme ile decode et
+            configureSampling(options, MAX_IMAGE_SIZE);
+            try (InputStream inputStream = context.getContentResolver().openInputStream(imageUri)) {
+                if (inputStream == null) {
+                    Log.e(TAG, "InputStream null");
+                    return false;
+                }
+                decodedBitmap = BitmapFactory.decodeStream(inputStream, null, options);
             }
 
-            // 3. Boyutu küçült (aspect ratio koru)
-            Bitmap resizedBitmap = resizeBitmap(originalBitmap, MAX_IMAGE_SIZE);
+            if (decodedBitmap == null) {
+                Log.e(TAG, "Bitmap decode edilemedi");
+                return false;
+            }
 
-            // 4. Internal storage'a kaydet
-            File directory = context.getFilesDir(); // /data/data/com.example.echo/files/
-            File imageFile = new File(directory, fileName);
+            // 3. Yuvarlama farkları için son boyut kontrolü (aspect ratio koru)
+            resizedBitmap = resizeBitmap(decodedBitmap, MAX_IMAGE_SIZE);
 
-            FileOutputStream fos = new FileOutputStream(imageFile);
-            resizedBitmap.compress(Bitmap.CompressFormat.JPEG, COMPRESSION_QUALITY, fos);
-            fos.close();
+            // 4. Internal storage'a kaydet (encode başarısızsa yarım dosya bırakma)
+            boolean encoded;
+            try (FileOutputStream fos = new FileOutputStream(imageFile)) {
+                encoded = imageEncoder.encode(resizedBitmap, fos);
+            }
+            if (!encoded) {
+                Log.e(TAG, "Görsel encode edilemedi: " + imageFile.getAbsolutePath());
+                imageFile.delete();
+                return false;
+            }
 
-            // 5. Memory temizle
-            originalBitmap.recycle();
-            resizedBitmap.recycle();
+            // 5. Küçük çözünürlükleri aynı bitmap'ten kademeli olarak üret
+            writeRenditions(resizedBitmap, imageFile.getAbsolutePath(), imageEncoder);
 
             Log.d(TAG, "Görsel kaydedildi: " + imageFile.getAbsolutePath());
-            return imageFile.getAbsolutePath();
+            return true;
 
-        } catch (IOException e) {
+        } catch (IOException | OutOfMemoryError e) {
             Log.e(TAG, "Görsel kaydetme hatası", e);
+            imageFile.delete();
+            return false;
+
+        } finally {
+            // 6. Memory temizle
+            if (resizedBitmap != null && resizedBitmap != decodedBitmap) {
+                resizedBitmap.recycle();
+            }
+            if (decodedBitmap != null) {
+                decodedBitmap.recycle();
+            }
+        }
+    }
+
+    /**
+     * FEED ve AVATAR dosyalarını yaz (büyükten küçüğe, her biri bir öncekinden ölçeklenir)
+     * Bir çözünürlük yazılamazsa yükleyici FULL dosyaya düşer
+     */
+    private void writeRenditions(Bitmap fullBitmap, String fullPath, ImageEncoder imageEncoder) {
+        Bitmap source = fullBitmap;
+        Rendition[] smaller = {Rendition.FEED, Rendition.AVATAR};
+
+        for (Rendition rendition : smaller) {
+            Bitmap scaled = resizeBitmap(source, rendition.maxSize);
+            String path = getRenditionPath(fullPath, rendition);
+
+            boolean encoded = false;
+            try (FileOutputStream fos = new FileOutputStream(path)) {
+                encoded = imageEncoder.encode(scaled, fos);
+                if (!encoded) {
+                    Log.e(TAG, rendition + " encode edilemedi: " + path);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, rendition + " kaydedilemedi: " + path, e);
+            }
+
+            if (encoded) {
+                fileStats.put(path, new File(path).lastModified());
+            } else {
+                // Yarım dosya silinir, yükleyici FULL dosyaya düşer
+                new File(path).delete();
+                fileStats.put(path, 0L);
+            }
+
+            if (source != fullBitmap && source != scaled) {
+                source.recycle();
+            }
+            source = scaled;
+        }
+
+        if (source != fullBitmap) {
+            source.recycle();
+        }
+    }
+
+    /**
+     * FULL path'ten istenen çözünürlüğün path'ini türet
+     * Örn: /files/post_x_123.jpg -> /files/post_x_123_feed.jpg
+     */
+    public static String getRenditionPath(String fullPath, Rendition rendition) {
+        if (rendition == Rendition.FULL) {
+            return fullPath;
+        }
+
+        int dot = fullPath.lastIndexOf('.');
+        if (dot <= fullPath.lastIndexOf(File.separatorChar)) {
+            return fullPath + rendition.suffix;
+        }
+        return fullPath.substring(0, dot) + rendition.suffix + fullPath.substring(dot);
+    }
+
+    /**
+     * Hedef boyutu (piksel) karşılayan en küçük mevcut çözünürlüğün path'i
+     * Eski görsellerde küçük dosyalar yoksa FULL döner
+     */
+    public String getBestRenditionPath(String fullPath, int targetSize) {
+        if (fullPath == null) {
             return null;
         }
+        if (targetSize <= 0) {
+            targetSize = Rendition.FEED.maxSize; // Boyut bilinmiyorsa liste genişliği varsay
+        }
+
+        for (Rendition rendition : Rendition.values()) {
+            if (rendition == Rendition.FULL) break;
+
+            String path = getRenditionPath(fullPath, rendition);
+            if (rendition.maxSize >= targetSize && fileExists(path)) {
+                return path;
+            }
+        }
+        return fullPath;
+    }
+
+    /**
+     * Boyutları okunmuş options'ı hedef boyut için ayarla:
+     * inSampleSize (2'nin kuvveti) kaba küçültmeyi, inDensity/inTargetDensity
+     * kalan ölçeklemeyi decode sırasında yapar
+     */
+    private static void configureSampling(BitmapFactory.Options options, int maxSize) {
+        int longestSide = Math.max(options.outWidth, options.outHeight);
+
+        int sampleSize = 1;
+        while (longestSide / (sampleSize * 2) >= maxSize) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+
+        if (longestSide > maxSize) {
+            options.inScaled = true;
+            options.inDensity = longestSide;
+            options.inTargetDensity = maxSize * sampleSize;
+        }
     }
 
     /**
@@ -212,40 +560,292 @@ public class LocalImageManager {
      * Görseli sil
      */
     public boolean deleteImage(String filePath) {
+        return deleteImageFiles(filePath) > 0;
+    }
+
+    /**
+     * Görseli küçük çözünürlükleriyle birlikte sil, silinen byte sayısını döndür
+     */
+    private long deleteImageFiles(String filePath) {
         if (filePath == null || filePath.isEmpty()) {
-            return false;
+            return 0;
         }
 
-        File file = new File(filePath);
-        if (file.exists()) {
-            boolean deleted = file.delete();
-            Log.d(TAG, "Görsel silindi: " + deleted);
-            return deleted;
+        long reclaimed = 0;
+        for (Rendition rendition : Rendition.values()) {
+            String path = getRenditionPath(filePath, rendition);
+            fileStats.put(path, 0L);
+
+            File file = new File(path);
+            long length = file.length();
+            if (file.exists() && file.delete()) {
+                reclaimed += length;
+            }
+        }
+
+        Log.d(TAG, "Görsel silindi: " + filePath + " (" + reclaimed + " byte)");
+        return reclaimed;
+    }
+
+    /**
+     * Görsel ve küçük çözünürlüklerinin toplam boyutu
+     */
+    private long totalFileSize(String filePath) {
+        long size = 0;
+        for (Rendition rendition : Rendition.values()) {
+            size += new File(getRenditionPath(filePath, rendition)).length();
+        }
+        return size;
+    }
+
+    /**
+     * Disk bütçesini aşan blob'ları LRU sırasıyla sil, silinen byte sayısını döndür
+     * (görsel executor'unda çağrılmalı). Görsellerin uzak kopyası yoktur: oturumdaki
+     * kullanıcının kendi görselleri çıkarılmaz, sadece cihazdaki diğer hesaplarınkiler çıkarılır
+     */
+    private long enforceDiskBudget(String keepHash) {
+        long reclaimed = 0;
+        String userId = FirebaseAuth.getInstance().getUid();
+        for (String evictedPath : blobStore.evictToFit(getDiskBudget(), keepHash, userId)) {
+            reclaimed += deleteImageFiles(evictedPath);
+        }
+        if (reclaimed > 0) {
+            Log.d(TAG, "Disk bütçesi için " + reclaimed + " byte çıkarıldı");
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Yeni görsellerde kullanılacak encoder (varsayılan: cihazın desteklediği en verimli format)
+     * Mevcut blob'lar kendi formatlarıyla okunmaya devam eder
+     */
+    public void setEncoder(ImageEncoder encoder) {
+        if (encoder.isSupported()) {
+            this.encoder = encoder;
         }
+    }
 
-        return false;
+    public ImageEncoder getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Görsel deposunun disk bütçesi (byte)
+     */
+    public long getDiskBudget() {
+        return context.getSharedPreferences(STORE_PREFS_NAME, Context.MODE_PRIVATE)
+                .getLong("diskBudgetBytes", DEFAULT_DISK_BUDGET_BYTES);
+    }
+
+    /**
+     * Disk bütçesini ayarla; yeni bütçe aşılıyorsa hemen arka planda eviction yapılır
+     */
+    public void setDiskBudget(long budgetBytes) {
+        context.getSharedPreferences(STORE_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit().putLong("diskBudgetBytes", budgetBytes).apply();
+        imageExecutor.execute(() -> enforceDiskBudget(null));
+    }
+
+    /**
+     * Görsele erişildiğini kaydet (LRU eviction için). Main thread'den çağrılır;
+     * erişim zamanları biriktirilip birkaç saniyede bir arka planda diske yazılır
+     */
+    public void recordAccess(String filePath) {
+        if (!blobStore.isBlobPath(filePath)) {
+            return;
+        }
+
+        blobStore.touch(filePath);
+        if (!accessFlushScheduled) {
+            accessFlushScheduled = true;
+            mainHandler.postDelayed(() -> {
+                accessFlushScheduled = false;
+                imageExecutor.execute(blobStore::flushAccessTimes);
+            }, ACCESS_FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Görsel bütçe nedeniyle diskten çıkarıldı mı? (placeholder gösterilmeli)
+     */
+    public boolean isEvicted(String filePath) {
+        return blobStore.isEvicted(filePath);
+    }
+
+    /**
+     * Kategori bazında disk kullanımı ("profile", "cover", "post"; byte).
+     * Blob deposu ve eski şemadaki dosyalar birlikte sayılır, sonuç main thread'de döner
+     */
+    public void getDiskUsage(OnDiskUsageCallback callback) {
+        imageExecutor.execute(() -> {
+            Map<String, Long> usage = blobStore.usageByCategory();
+
+            File[] files = context.getFilesDir().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    String category = ImageBlobStore.categoryOf(file.getName());
+                    if (category != null && file.isFile()) {
+                        usage.put(category, usage.get(category) + file.length());
+                    }
+                }
+            }
+
+            mainHandler.post(() -> callback.onUsage(usage));
+        });
+    }
+
+    /**
+     * Referansı bırak; görseli başka referans kullanmıyorsa sil (arka plan thread'i)
+     */
+    private void releaseImage(String ref, String filePath) {
+        if (filePath == null) {
+            return;
+        }
+
+        if (blobStore.isBlobPath(filePath)) {
+            String orphanPath = blobStore.releaseRef(ref);
+            if (orphanPath != null) {
+                deleteImage(orphanPath);
+            }
+        } else {
+            deleteImage(filePath);
+        }
+    }
+
+    /**
+     * Günde en fazla bir kez çöp toplama çalıştır
+     */
+    public void collectGarbageIfDue(FirebaseFirestore db) {
+        SharedPreferences gcPrefs = context.getSharedPreferences(STORE_PREFS_NAME, Context.MODE_PRIVATE);
+        long lastRunAt = gcPrefs.getLong("lastRunAt", 0);
+        if (System.currentTimeMillis() - lastRunAt < GC_INTERVAL_MS) {
+            return;
+        }
+
+        collectGarbage(db, bytesReclaimed ->
+                gcPrefs.edit().putLong("lastRunAt", System.currentTimeMillis()).apply());
+    }
+
+    /**
+     * Çöp toplama: Firestore'da artık olmayan postların referanslarını bırakır, sahipsiz
+     * blob'ları ve eski şemadaki yetim post dosyalarını siler.
+     * Geri kazanılan byte sayısı main thread'de bildirilir
+     */
+    public void collectGarbage(FirebaseFirestore db, OnGarbageCollectedCallback callback) {
+        imageExecutor.execute(() -> {
+            Map<String, List<File>> legacyFiles = findLegacyPostFiles();
+            Set<String> postIds = new HashSet<>(blobStore.getPostIds());
+            postIds.addAll(legacyFiles.keySet());
+
+            findExistingPosts(db, postIds, existingIds -> imageExecutor.execute(() -> {
+                long reclaimed = 0;
+
+                for (String postId : postIds) {
+                    if (existingIds.contains(postId)) continue;
+
+                    String orphanPath = blobStore.releaseRef("post_" + postId);
+                    if (orphanPath != null) {
+                        reclaimed += deleteImageFiles(orphanPath);
+                    }
+
+                    List<File> files = legacyFiles.get(postId);
+                    if (files != null) {
+                        for (File file : files) {
+                            reclaimed += deleteImageFiles(file.getAbsolutePath());
+                        }
+                    }
+                }
+
+                for (String orphanPath : blobStore.removeUnreferenced()) {
+                    reclaimed += deleteImageFiles(orphanPath);
+                }
+                reclaimed += enforceDiskBudget(null);
+
+                final long totalReclaimed = reclaimed;
+                Log.d(TAG, "Çöp toplama tamamlandı: " + totalReclaimed + " byte geri kazanıldı");
+                mainHandler.post(() -> callback.onCollected(totalReclaimed));
+            }));
+        });
+    }
+
+    /**
+     * Eski şemadaki post_{postId}_{millis}.jpg dosyalarını post ID'ye göre grupla
+     */
+    private Map<String, List<File>> findLegacyPostFiles() {
+        Map<String, List<File>> filesByPostId = new HashMap<>();
+
+        File[] files = context.getFilesDir().listFiles();
+        if (files == null) {
+            return filesByPostId;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith("post_") || !name.endsWith(".jpg")
+                    || name.endsWith(Rendition.FEED.suffix + ".jpg")
+                    || name.endsWith(Rendition.AVATAR.suffix + ".jpg")) {
+                continue;
+            }
+
+            int separator = name.lastIndexOf('_');
+            if (separator <= "post_".length()) continue;
+
+            String postId = name.substring("post_".length(), separator);
+            List<File> postFiles = filesByPostId.get(postId);
+            if (postFiles == null) {
+                postFiles = new ArrayList<>();
+                filesByPostId.put(postId, postFiles);
+            }
+            postFiles.add(file);
+        }
+        return filesByPostId;
+    }
+
+    /**
+     * Firestore'da hâlâ var olan post ID'lerini bul (whereIn parçalarıyla)
+     * Sorgu başarısız olursa hiçbir şey silinmesin diye tüm ID'ler var sayılır
+     */
+    private void findExistingPosts(FirebaseFirestore db, Set<String> postIds,
+                                   OnExistingPostsCallback callback) {
+        List<String> ids = new ArrayList<>(postIds);
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += WHERE_IN_LIMIT) {
+            queries.add(db.collection("posts")
+                    .whereIn(FieldPath.documentId(),
+                            new ArrayList<>(ids.subList(i, Math.min(i + WHERE_IN_LIMIT, ids.size()))))
+                    .get());
+        }
+
+        Tasks.whenAllSuccess(queries)
+                .addOnSuccessListener(results -> {
+                    Set<String> existingIds = new HashSet<>();
+                    for (Object result : results) {
+                        for (DocumentSnapshot document : ((QuerySnapshot) result).getDocuments()) {
+                            existingIds.add(document.getId());
+                        }
+                    }
+                    callback.onResult(existingIds);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Post varlık kontrolü başarısız, sadece sahipsiz blob'lar toplanacak", e);
+                    callback.onResult(postIds);
+                });
     }
 
     /**
      * Kullanıcının tüm görsellerini sil
      */
     public void deleteAllUserImages(String userId) {
-        // Profil fotoğrafını sil
         String profilePath = getProfileImagePath(userId);
-        if (profilePath != null) {
-            deleteImage(profilePath);
-            prefs.edit().remove("profile_" + userId).apply();
-        }
-
-        // Cover fotoğrafını sil
         String coverPath = getCoverImagePath(userId);
-        if (coverPath != null) {
-            deleteImage(coverPath);
-            prefs.edit().remove("cover_" + userId).apply();
-        }
+        removeIndexEntry("profile_" + userId);
+        removeIndexEntry("cover_" + userId);
 
-        // Cache'i temizle
-        clearGlideCache(userId);
+        // Referansları bırak, sahipsiz kalan dosyaları görsel executor'unda sil
+        imageExecutor.execute(() -> {
+            releaseImage("profile_" + userId, profilePath);
+            releaseImage("cover_" + userId, coverPath);
+        });
 
         Log.d(TAG, "Kullanıcının tüm görselleri silindi: " + userId);
     }
@@ -268,12 +868,40 @@ public class LocalImageManager {
     }
 
     /**
-     * Dosya var mı kontrol et
+     * Dosya var mı kontrol et (bellekten, disk erişimi yok)
+     * Açılış taraması bitmeden blob'ların varlığı depo index'inden bilinir
      */
     public boolean fileExists(String filePath) {
-        if (filePath == null || filePath.isEmpty()) {
-            return false;
+        if (getLastModified(filePath) > 0) {
+            return true;
+        }
+        return !fileStatsScanned && !fileStats.containsKey(filePath) && blobStore.containsPath(filePath);
+    }
+
+    private static class ImageEntry {
+        final String path;
+        final long lastModified;
+
+        ImageEntry(String path, long lastModified) {
+            this.path = path;
+            this.lastModified = lastModified;
         }
-        return new File(filePath).exists();
     }
-}
\ No newline at end of file
+
+    // Callback Interfaces
+    public interface OnImageSavedCallback {
+        void onImageSaved(String filePath); // Başarısızsa null
+    }
+
+    public interface OnGarbageCollectedCallback {
+        void onCollected(long bytesReclaimed);
+    }
+
+    public interface OnDiskUsageCallback {
+        void onUsage(Map<String, Long> bytesByCategory);
+    }
+
+    private interface OnExistingPostsCallback {
+        void onResult(Set<String> existingIds);
+    }
+}
@@ -0,0 +1,512 @@
+package com.example.echo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import com.google.firebase.Timestamp;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Cihaz İçi Arama Index'i
+ * Uygulamanın zaten yüklediği gönderi ve kullanıcılardan artımlı olarak kurulan
+ * ters index (kelime -> belge ID'leri). SearchIndex ile aynı Türkçe normalizasyonu kullanır.
+ * Tüm durum tek bir arka plan thread'inde tutulur; sonuçlar main thread'e döner.
+ * Belgeler filesDir/search_index.json'a yazılır, index açılışta bu dosyadan yeniden kurulur.
+ */
+public class LocalSearchIndex {
+
+    private static final String TAG = "LocalSearchIndex";
+    private static final String FILE_NAME = "search_index.json";
+    private static final int MAX_POSTS = 2000;
+    private static final int MAX_USERS = 1000;
+    private static final long SAVE_DELAY_MS = 5000; // Art arda gelen güncellemeler tek yazmada birleşir
+
+    private static LocalSearchIndex instance;
+
+    private final File indexFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Aşağıdaki alanlara sadece executor thread'inden erişilir
+    private final LinkedHashMap<String, PostEntry> posts = new LinkedHashMap<>(); // Ekleme sırası = eskiden yeniye
+    private final LinkedHashMap<String, UserEntry> users = new LinkedHashMap<>();
+    private final TreeMap<String, Set<String>> postTokens = new TreeMap<>();
+    private final TreeMap<String, Set<String>> userTokens = new TreeMap<>();
+    private final Map<String, Set<String>> userNgrams = new HashMap<>(); // 3-gram -> kullanıcı ID'leri
+    private boolean saveScheduled = false;
+
+    private LocalSearchIndex(Context context) {
+        this.indexFile = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        executor.execute(this::load);
+    }
+
+    public static synchronized LocalSearchIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalSearchIndex(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Yüklenen gönderileri index'e ekle (var olanlar güncellenir)
+     */
+    public void indexPosts(List<Post> loadedPosts) {
+        List<PostEntry> entries = new ArrayList<>();
+        for (Post post : loadedPosts) {
+            if (post != null && post.getPostId() != null) {
+                entries.add(new PostEntry(post));
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            for (PostEntry entry : entries) {
+                putPost(entry);
+            }
+            scheduleSave();
+        });
+    }
+
+    public void removePost(String postId) {
+        if (postId == null) {
+            return;
+        }
+        executor.execute(() -> {
+            if (removePostEntry(postId)) {
+                scheduleSave();
+            }
+        });
+    }
+
+    /**
+     * Yüklenen kullanıcıları index'e ekle (var olanlar güncellenir)
+     */
+    public void indexUsers(List<User> loadedUsers) {
+        List<UserEntry> entries = new ArrayList<>();
+        for (User user : loadedUsers) {
+            if (user != null && user.getUserId() != null) {
+                entries.add(new UserEntry(user));
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            for (UserEntry entry : entries) {
+                putUser(entry);
+            }
+            scheduleSave();
+        });
+    }
+
+    /**
+     * Gönderilerde ara: tüm kelimeler geçmeli, son kelime önek olarak eşleşir
+     * (yazılmakta olan kelime). Sonuçlar en yeniden eskiye
+     */
+    public void searchPosts(String query, int limit, OnPostResultsCallback callback) {
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Set<String> ids = match(postTokens, SearchIndex.tokenize(query));
+
+            List<PostEntry> matches = new ArrayList<>();
+            for (String id : ids) {
+                PostEntry entry = posts.get(id);
+                if (entry != null) {
+                    matches.add(entry);
+                }
+            }
+            matches.sort((e1, e2) -> Long.compare(e2.timestampSeconds, e1.timestampSeconds));
+
+            List<Post> results = new ArrayList<>();
+            for (int i = 0; i < matches.size() && i < limit; i++) {
+                results.add(matches.get(i).toPost());
+            }
+
+            Log.d(TAG, "Yerel gönderi araması: " + results.size() + " sonuç, "
+                    + (SystemClock.elapsedRealtimeNanos() - start) / 1000 + " µs");
+            mainHandler.post(() -> callback.onResults(results));
+        });
+    }
+
+    /**
+     * Kullanıcılarda ara: adaylar kelime önekleri ve (yazım hataları için) 3-gram
+     * eşleşmeleriyle toplanır, UserSearchRanker ile puanlanıp sıralanır
+     */
+    public void searchUsers(String query, int limit, OnUserResultsCallback callback) {
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtimeNanos();
+            List<String> queryTokens = SearchIndex.tokenize(query.replace("@", ""));
+
+            Set<String> ids = new LinkedHashSet<>();
+            for (String queryToken : queryTokens) {
+                ids.addAll(prefixMatch(userTokens, queryToken));
+                ids.addAll(ngramMatch(queryToken));
+            }
+
+            List<UserSearchRanker.Candidate> candidates = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                UserEntry entry = users.get(id);
+                if (entry != null) {
+                    candidates.add(entry.candidate);
+                }
+            }
+            List<User> results = UserSearchRanker.rank(query, candidates, limit);
+
+            Log.d(TAG, "Yerel kullanıcı araması: " + results.size() + " sonuç, "
+                    + (SystemClock.elapsedRealtimeNanos() - start) / 1000 + " µs");
+            mainHandler.post(() -> callback.onResults(results));
+        });
+    }
+
+    // Son kelime hariç tam eşleşme, son kelime önek eşleşmesi; kesişim
+    private static Set<String> match(TreeMap<String, Set<String>> index, List<String> tokens) {
+        if (tokens.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Set<String> result = prefixMatch(index, tokens.get(tokens.size() - 1));
+        for (int i = 0; i < tokens.size() - 1 && !result.isEmpty(); i++) {
+            Set<String> exact = index.get(tokens.get(i));
+            if (exact == null) {
+                return new HashSet<>();
+            }
+            result.retainAll(exact);
+        }
+        return result;
+    }
+
+    /**
+     * Sorgu kelimesiyle yeterince 3-gram paylaşan kullanıcılar (yazım hatası adayları)
+     */
+    private Set<String> ngramMatch(String queryToken) {
+        Set<String> result = new HashSet<>();
+        if (UserSearchRanker.maxEdits(queryToken.length()) == 0) {
+            return result;
+        }
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : UserSearchRanker.ngrams(queryToken)) {
+            Set<String> ids = userNgrams.get(gram);
+            if (ids == null) continue;
+            for (String id : ids) {
+                Integer count = shared.get(id);
+                shared.put(id, count == null ? 1 : count + 1);
+            }
+        }
+
+        int minShared = UserSearchRanker.minSharedNgrams(queryToken);
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= minShared) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> prefixMatch(TreeMap<String, Set<String>> index, String prefix) {
+        Set<String> result = new LinkedHashSet<>();
+        SortedMap<String, Set<String>> range = index.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (Set<String> ids : range.values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    private void putPost(PostEntry entry) {
+        removePostEntry(entry.postId);
+        posts.put(entry.postId, entry);
+        addTokens(postTokens, entry.tokens, entry.postId);
+
+        if (posts.size() > MAX_POSTS) {
+            removePostEntry(posts.keySet().iterator().next());
+        }
+    }
+
+    private boolean removePostEntry(String postId) {
+        PostEntry old = posts.remove(postId);
+        if (old == null) {
+            return false;
+        }
+        removeTokens(postTokens, old.tokens, postId);
+        return true;
+    }
+
+    private void putUser(UserEntry entry) {
+        removeUserEntry(entry.userId);
+        users.put(entry.userId, entry);
+        addTokens(userTokens, entry.tokens, entry.userId);
+        addTokens(userNgrams, entry.ngrams, entry.userId);
+
+        if (users.size() > MAX_USERS) {
+            removeUserEntry(users.keySet().iterator().next());
+        }
+    }
+
+    private void removeUserEntry(String userId) {
+        UserEntry old = users.remove(userId);
+        if (old != null) {
+            removeTokens(userTokens, old.tokens, userId);
+            removeTokens(userNgrams, old.ngrams, userId);
+        }
+    }
+
+    private static void addTokens(Map<String, Set<String>> index, List<String> tokens, String id) {
+        for (String token : tokens) {
+            Set<String> ids = index.get(token);
+            if (ids == null) {
+                ids = new HashSet<>();
+                index.put(token, ids);
+            }
+            ids.add(id);
+        }
+    }
+
+    private static void removeTokens(Map<String, Set<String>> index, List<String> tokens, String id) {
+        for (String token : tokens) {
+            Set<String> ids = index.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(token);
+                }
+            }
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        mainHandler.postDelayed(() -> executor.execute(() -> {
+            saveScheduled = false;
+            save();
+        }), SAVE_DELAY_MS);
+    }
+
+    private void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (InputStream inputStream = new FileInputStream(indexFile)) {
+            byte[] bytes = new byte[(int) indexFile.length()];
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) != -1) {
+                offset += read;
+            }
+
+            JSONObject root = new JSONObject(new String(bytes, 0, offset, StandardCharsets.UTF_8));
+            JSONArray postsJson = root.optJSONArray("posts");
+            if (postsJson != null) {
+                for (int i = 0; i < postsJson.length(); i++) {
+                    putPost(PostEntry.fromJson(postsJson.getJSONObject(i)));
+                }
+            }
+            JSONArray usersJson = root.optJSONArray("users");
+            if (usersJson != null) {
+                for (int i = 0; i < usersJson.length(); i++) {
+                    putUser(UserEntry.fromJson(usersJson.getJSONObject(i)));
+                }
+            }
+            Log.d(TAG, "Yerel index yüklendi: " + posts.size() + " gönderi, " + users.size() + " kullanıcı");
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Yerel index okunamadı", e);
+        }
+    }
+
+    /**
+     * Belgeleri geçici dosyaya yazıp yerine taşı (ters index yazılmaz, açılışta yeniden kurulur)
+     */
+    private void save() {
+        File tempFile = new File(indexFile.getParentFile(), FILE_NAME + ".tmp");
+        try {
+            JSONArray postsJson = new JSONArray();
+            for (PostEntry entry : posts.values()) {
+                postsJson.put(entry.toJson());
+            }
+            JSONArray usersJson = new JSONArray();
+            for (UserEntry entry : users.values()) {
+                usersJson.put(entry.toJson());
+            }
+
+            JSONObject root = new JSONObject();
+            root.put("posts", postsJson);
+            root.put("users", usersJson);
+
+            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+                fos.write(root.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (!tempFile.renameTo(indexFile)) {
+                Log.e(TAG, "Yerel index taşınamadı");
+            }
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Yerel index yazılamadı", e);
+        }
+    }
+
+    /**
+     * Index'teki gönderi kopyası (sonuç listesinde göstermek için gereken alanlar)
+     */
+    private static class PostEntry {
+        final String postId;
+        final String userId;
+        final String userName;
+        final String usertag;
+        final String content;
+        final String imageUrl;
+        final long timestampSeconds;
+        final int likeCount;
+        final int commentCount;
+        final int retweetCount;
+        final List<String> tokens;
+
+        PostEntry(Post post) {
+            this(post.getPostId(), post.getUserId(), post.getUserName(), post.getUserTag(),
+                    post.getContent(), post.getImageUrl(),
+                    post.getTimestamp() != null ? post.getTimestamp().getSeconds() : 0,
+                    post.getLikeCount(), post.getCommentCount(), post.getRetweetCount());
+        }
+
+        PostEntry(String postId, String userId, String userName, String usertag, String content,
+                  String imageUrl, long timestampSeconds, int likeCount, int commentCount,
+                  int retweetCount) {
+            this.postId = postId;
+            this.userId = userId;
+            this.userName = userName;
+            this.usertag = usertag;
+            this.content = content;
+            this.imageUrl = imageUrl;
+            this.timestampSeconds = timestampSeconds;
+            this.likeCount = likeCount;
+            this.commentCount = commentCount;
+            this.retweetCount = retweetCount;
+            this.tokens = SearchIndex.postSearchTokens(content, userName, usertag);
+        }
+
+        Post toPost() {
+            Post post = new Post(userId, userName, usertag, content);
+            post.setPostId(postId);
+            post.setImageUrl(imageUrl);
+            post.setLikeCount(likeCount);
+            post.setCommentCount(commentCount);
+            post.setRetweetCount(retweetCount);
+            if (timestampSeconds > 0) {
+                post.setTimestamp(new Timestamp(timestampSeconds, 0));
+            }
+            return post;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("id", postId);
+            json.put("userId", userId);
+            json.put("userName", userName);
+            json.put("usertag", usertag);
+            json.put("content", content);
+            json.put("imageUrl", imageUrl);
+            json.put("timestamp", timestampSeconds);
+            json.put("likeCount", likeCount);
+            json.put("commentCount", commentCount);
+            json.put("retweetCount", retweetCount);
+            return json;
+        }
+
+        static PostEntry fromJson(JSONObject json) {
+            return new PostEntry(json.optString("id"), json.optString("userId", null),
+                    json.optString("userName", null), json.optString("usertag", null),
+                    json.optString("content", null), json.optString("imageUrl", null),
+                    json.optLong("timestamp"), json.optInt("likeCount"),
+                    json.optInt("commentCount"), json.optInt("retweetCount"));
+        }
+    }
+
+    /**
+     * Index'teki kullanıcı kopyası
+     */
+    private static class UserEntry {
+        final String userId;
+        final String fullName;
+        final String usertag;
+        final int followerCount;
+        final UserSearchRanker.Candidate candidate; // Normalize edilmiş metinler bir kez hesaplanır
+        final List<String> tokens;
+        final List<String> ngrams;
+
+        UserEntry(User user) {
+            this(user.getUserId(), user.getFullName(), user.getUsertag(), user.getFollowerCount());
+        }
+
+        UserEntry(String userId, String fullName, String usertag, int followerCount) {
+            this.userId = userId;
+            this.fullName = fullName;
+            this.usertag = usertag;
+            this.followerCount = followerCount;
+
+            this.candidate = new UserSearchRanker.Candidate(toUser());
+            this.tokens = Arrays.asList(candidate.getTokens());
+
+            Set<String> gramSet = new HashSet<>();
+            for (String token : tokens) {
+                gramSet.addAll(UserSearchRanker.ngrams(token));
+            }
+            this.ngrams = new ArrayList<>(gramSet);
+        }
+
+        User toUser() {
+            User user = new User(userId, fullName, usertag, null);
+            user.setFollowerCount(followerCount);
+            return user;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("id", userId);
+            json.put("fullName", fullName);
+            json.put("usertag", usertag);
+            json.put("followerCount", followerCount);
+            return json;
+        }
+
+        static UserEntry fromJson(JSONObject json) {
+            return new UserEntry(json.optString("id"), json.optString("fullName", null),
+                    json.optString("usertag", null), json.optInt("followerCount"));
+        }
+    }
+
+    // Callback Interfaces
+    public interface OnPostResultsCallback {
+        void onResults(List<Post> posts);
+    }
+
+    public interface OnUserResultsCallback {
+        void onResults(List<User> users);
+    }
+}
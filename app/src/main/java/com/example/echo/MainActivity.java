@@ -9,8 +9,12 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
+import com.google.android.material.badge.BadgeDrawable;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 
 
 public class MainActivity extends AppCompatActivity {
@@ -18,6 +22,7 @@ public class MainActivity extends AppCompatActivity {
     private BottomNavigationView bottomNavigation;
     private FloatingActionButton fabNewPost;
     private ImageView profileImageView, searchButton;
+    private ListenerRegistration unreadBadgeListener; // Bildirim rozeti için tek listener
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -33,6 +38,25 @@ public class MainActivity extends AppCompatActivity {
         // İlk fragment'ı yükle (Home)
         loadFragment(new HomeFragment());
 
+        // Eski rastgele ID'li beğenileri yeni anahtar şemasına taşı (kullanıcı başına bir kez)
+        LikeMigration.runIfNeeded(this, FirebaseFirestore.getInstance(),
+                FirebaseAuth.getInstance().getUid());
+
+        // Eski rastgele ID'li bildirimleri deterministik anahtarlara taşı (kullanıcı başına bir kez)
+        NotificationKeyMigration.runIfNeeded(this, FirebaseFirestore.getInstance(),
+                FirebaseAuth.getInstance().getUid());
+
+        // Oturum açan kullanıcının profilini tek listener ile cache'te tut
+        UserProfileCache.getInstance().startListening(this, FirebaseFirestore.getInstance(),
+                FirebaseAuth.getInstance().getUid());
+
+        // Index'ten önce oluşturulmuş profil ve gönderilere arama anahtarı ekle (kullanıcı başına bir kez)
+        SearchIndex.backfillIfNeeded(this, FirebaseFirestore.getInstance(),
+                FirebaseAuth.getInstance().getUid());
+
+        // Silinmiş postlardan kalan ve sahipsiz görselleri temizle (günde bir kez, arka planda)
+        LocalImageManager.getInstance(this).collectGarbageIfDue(FirebaseFirestore.getInstance());
+
         // Bottom Navigation ayarları
         bottomNavigation.setOnNavigationItemSelectedListener(new BottomNavigationView.OnNavigationItemSelectedListener() {
             @Override
@@ -67,6 +91,9 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // Okunmamış bildirim rozeti
+        setupNotificationBadge();
+
         // Floating Action Button - Yeni gönderi
         fabNewPost.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, NewPostActivity.class);
@@ -88,6 +115,36 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Rozet notificationState/{uid}.unreadCount'u dinler; sayaç açılışta count() ile doğrulanır
+     */
+    private void setupNotificationBadge() {
+        String userId = FirebaseAuth.getInstance().getUid();
+        if (userId == null) {
+            return;
+        }
+
+        NotificationManager notificationManager =
+                new NotificationManager(FirebaseFirestore.getInstance(), userId);
+        notificationManager.reconcileUnreadCount();
+
+        unreadBadgeListener = notificationManager.listenUnreadCount(count -> {
+            BadgeDrawable badge = bottomNavigation.getOrCreateBadge(R.id.nav_notifications);
+            badge.setMaxNumber(99); // 99+
+            badge.setNumber(count);
+            badge.setVisible(count > 0);
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (unreadBadgeListener != null) {
+            unreadBadgeListener.remove();
+            unreadBadgeListener = null;
+        }
+    }
+
     private void loadFragment(Fragment fragment) {
         FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
         transaction.replace(R.id.fragmentContainer, fragment);
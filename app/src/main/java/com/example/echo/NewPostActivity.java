@@ -53,7 +53,7 @@ public class NewPostActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_new_post);
-        localImageManager = new LocalImageManager(this);
+        localImageManager = LocalImageManager.getInstance(this);
 
         // Firebase başlat
         mAuth = FirebaseAuth.getInstance();
@@ -171,73 +171,26 @@ public class NewPostActivity extends AppCompatActivity {
         postButton.setEnabled(false);
         postButton.setText("Gönderiliyor...");
 
-        // Kullanıcı bilgilerini Firestore'dan al
+        // Kullanıcı bilgilerini al (önce cache, yoksa Firestore)
+        UserProfileCache.Profile profile = UserProfileCache.getInstance().get(currentUser.getUid());
+        if (profile != null) {
+            writePost(content, profile.getFullName(), profile.getUsertag());
+            return;
+        }
+
         db.collection("users").document(currentUser.getUid())
                 .get()
                 .addOnSuccessListener(documentSnapshot -> {
-                    String userName;
-                    String usertag;
+                    String userName = null;
+                    String usertag = null;
 
                     if (documentSnapshot.exists()) {
                         userName = documentSnapshot.getString("fullName");
                         usertag = documentSnapshot.getString("usertag");
-                    } else {
-                        // Kullanıcı bilgisi yoksa varsayılan değerler
-                        userName = currentUser.getEmail() != null ?
-                                currentUser.getEmail().split("@")[0] : "Kullanıcı";
-                        usertag = userName.toLowerCase().replace(" ", "");
+                        UserProfileCache.getInstance().put(currentUser.getUid(), userName, usertag);
                     }
 
-                    // Post verisini Map olarak oluştur
-                    Map<String, Object> postData = new HashMap<>();
-                    postData.put("userId", currentUser.getUid());
-                    postData.put("userName", userName);
-                    postData.put("usertag", usertag);
-                    postData.put("content", content);
-                    postData.put("timestamp", FieldValue.serverTimestamp());
-                    postData.put("commentCount", 0);
-                    postData.put("retweetCount", 0);
-                    postData.put("likeCount", 0);
-                    postData.put("isLiked", false);
-
-                    // Firestore'a kaydet (önce post ID'yi al)
-                    db.collection("posts")
-                            .add(postData)
-                            .addOnSuccessListener(documentReference -> {
-                                String postId = documentReference.getId();
-
-                                // ✨ GÖRSEL VARsa LOCAL'e KAYDET
-                                if (selectedImageUri != null) {
-                                    String imagePath = localImageManager.savePostImage(postId, selectedImageUri);
-
-                                    if (imagePath != null) {
-                                        // Firestore'da imageUrl field'ını local path ile güncelle
-                                        documentReference.update("imageUrl", imagePath)
-                                                .addOnSuccessListener(aVoid -> {
-                                                    Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
-                                                    finishActivity();
-                                                })
-                                                .addOnFailureListener(e -> {
-                                                    Log.e("NewPostActivity", "Image path güncellenemedi", e);
-                                                    Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
-                                                    finishActivity();
-                                                });
-                                    } else {
-                                        Toast.makeText(this, "Görsel kaydedilemedi ama post paylaşıldı", Toast.LENGTH_SHORT).show();
-                                        finishActivity();
-                                    }
-                                } else {
-                                    // Görsel yoksa direkt bitir
-                                    Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
-                                    finishActivity();
-                                }
-                            })
-                            .addOnFailureListener(e -> {
-                                postButton.setEnabled(true);
-                                postButton.setText("Gönder");
-                                Toast.makeText(this, "Gönderi yüklenemedi: " + e.getMessage(),
-                                        Toast.LENGTH_SHORT).show();
-                            });
+                    writePost(content, userName, usertag);
                 })
                 .addOnFailureListener(e -> {
                     postButton.setEnabled(true);
@@ -245,6 +198,73 @@ public class NewPostActivity extends AppCompatActivity {
                     Toast.makeText(this, "Hata: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                 });
     }
+
+    /**
+     * Gönderiyi Firestore'a yaz
+     */
+    private void writePost(String content, String userName, String usertag) {
+        if (userName == null) {
+            // Kullanıcı bilgisi yoksa varsayılan değerler
+            userName = currentUser.getEmail() != null ?
+                    currentUser.getEmail().split("@")[0] : "Kullanıcı";
+            usertag = userName.toLowerCase().replace(" ", "");
+        }
+
+        // Post verisini Map olarak oluştur
+        Map<String, Object> postData = new HashMap<>();
+        postData.put("userId", currentUser.getUid());
+        postData.put("userName", userName);
+        postData.put("usertag", usertag);
+        postData.put("content", content);
+        postData.put("timestamp", FieldValue.serverTimestamp());
+        postData.put("commentCount", 0);
+        postData.put("retweetCount", 0);
+        postData.put("likeCount", 0);
+        postData.put("isLiked", false);
+        // Arama index'i için içerik kelimeleri
+        postData.put(SearchIndex.FIELD_POST_TOKENS,
+                SearchIndex.postSearchTokens(content, userName, usertag));
+
+        // Firestore'a kaydet (önce post ID'yi al)
+        db.collection("posts")
+                .add(postData)
+                .addOnSuccessListener(documentReference -> {
+                    String postId = documentReference.getId();
+
+                    // ✨ GÖRSEL VARsa LOCAL'e KAYDET (arka planda decode edilir)
+                    if (selectedImageUri != null) {
+                        localImageManager.savePostImage(postId, currentUser.getUid(), selectedImageUri, imagePath -> {
+                            if (imagePath != null) {
+                                // Firestore'da imageUrl field'ını local path ile güncelle
+                                documentReference.update("imageUrl", imagePath)
+                                        .addOnSuccessListener(aVoid -> {
+                                            Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
+                                            finishActivity();
+                                        })
+                                        .addOnFailureListener(e -> {
+                                            Log.e("NewPostActivity", "Image path güncellenemedi", e);
+                                            Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
+                                            finishActivity();
+                                        });
+                            } else {
+                                Toast.makeText(this, "Görsel kaydedilemedi ama post paylaşıldı", Toast.LENGTH_SHORT).show();
+                                finishActivity();
+                            }
+                        });
+                    } else {
+                        // Görsel yoksa direkt bitir
+                        Toast.makeText(this, "Gönderin yayınlandı! 🎉", Toast.LENGTH_SHORT).show();
+                        finishActivity();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    postButton.setEnabled(true);
+                    postButton.setText("Gönder");
+                    Toast.makeText(this, "Gönderi yüklenemedi: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                });
+    }
+
     private void finishActivity() {
         Intent resultIntent = new Intent();
         resultIntent.putExtra("post_created", true);
@@ -1,6 +1,8 @@
 package com.example.echo;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
+import java.util.List;
 
 public class Notification {
     private String notificationId;
@@ -14,6 +16,9 @@ public class Notification {
     private Timestamp timestamp;
     private boolean isRead;          // Okundu mu?
     private String timeAgo;          // "2dk", "5sa" gibi
+    private long count;              // Beğeni özetinde toplam beğenen sayısı
+    private List<String> actorIds;   // Beğeni özetinde son beğenenler (en yeni başta)
+    private List<String> actorNames;
 
     // Bildirim türleri
     public static final String TYPE_LIKE_POST = "LIKE_POST";
@@ -56,6 +61,9 @@ public class Notification {
     public Timestamp getTimestamp() { return timestamp; }
     public boolean isRead() { return isRead; }
     public String getTimeAgo() { return timeAgo; }
+    public long getCount() { return count; }
+    public List<String> getActorIds() { return actorIds; }
+    public List<String> getActorNames() { return actorNames; }
 
     // Setters
     public void setNotificationId(String notificationId) { this.notificationId = notificationId; }
@@ -69,6 +77,24 @@ public class Notification {
     public void setTimestamp(Timestamp timestamp) { this.timestamp = timestamp; }
     public void setRead(boolean read) { isRead = read; }
     public void setTimeAgo(String timeAgo) { this.timeAgo = timeAgo; }
+    public void setCount(long count) { this.count = count; }
+    public void setActorIds(List<String> actorIds) { this.actorIds = actorIds; }
+    public void setActorNames(List<String> actorNames) { this.actorNames = actorNames; }
+
+    /**
+     * Görünen gönderen: özetlerde "Ali ve 41 kişi daha", tekil bildirimlerde gönderenin adı
+     */
+    @Exclude
+    public String getDisplaySenderName() {
+        if (senderName == null || senderName.isEmpty()) {
+            // Son beğenenler geri aldıysa isim kalmamış olabilir
+            return count > 0 ? count + " kişi" : "";
+        }
+        if (count <= 1) {
+            return senderName;
+        }
+        return senderName + " ve " + (count - 1) + " kişi daha";
+    }
 
     /**
      * Bildirim mesajını döndürür
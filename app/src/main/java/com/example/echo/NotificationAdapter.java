@@ -9,21 +9,19 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
-import com.bumptech.glide.Glide;
-import com.google.firebase.firestore.FirebaseFirestore;
-import java.io.File;
 import java.util.List;
 
 public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapter.NotificationViewHolder> {
 
     private List<Notification> notificationList;
-    private FirebaseFirestore db;
     private LocalImageManager localImageManager;
+    private NotificationManager notificationManager;
 
-    public NotificationAdapter(List<Notification> notificationList, LocalImageManager localImageManager) {
+    public NotificationAdapter(List<Notification> notificationList, LocalImageManager localImageManager,
+                               NotificationManager notificationManager) {
         this.notificationList = notificationList;
         this.localImageManager = localImageManager;
-        this.db = FirebaseFirestore.getInstance();
+        this.notificationManager = notificationManager;
     }
 
     @NonNull
@@ -39,7 +37,7 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
         Notification notification = notificationList.get(position);
 
         // Gönderen kişinin adı
-        holder.senderName.setText(notification.getSenderName());
+        holder.senderName.setText(notification.getDisplaySenderName());
 
         // Bildirim mesajı
         holder.message.setText(notification.getMessage());
@@ -76,16 +74,8 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
         }
 
         // Profil fotoğrafı yükle (LOCAL)
-        String profileImagePath = localImageManager.getProfileImagePath(notification.getSenderId());
-        if (profileImagePath != null && localImageManager.fileExists(profileImagePath)) {
-            Glide.with(holder.itemView.getContext())
-                    .load(new File(profileImagePath))
-                    .circleCrop()
-                    .placeholder(R.mipmap.ic_launcher)
-                    .into(holder.profileImage);
-        } else {
-            holder.profileImage.setImageResource(R.mipmap.ic_launcher);
-        }
+        ImageLoadHelper.loadProfileImage(holder.itemView.getContext(), notification.getSenderId(),
+                holder.profileImage, localImageManager);
 
         // Tıklama olayları
         holder.itemView.setOnClickListener(v -> {
@@ -129,9 +119,8 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
     private void markAsRead(Notification notification) {
         if (!notification.isRead()) {
             notification.setRead(true);
-            db.collection("notifications")
-                    .document(notification.getNotificationId())
-                    .update("read", true)
+            // Bildirim belgesine değil, kullanıcının okundu durumuna yazılır
+            notificationManager.markAsRead(notification.getNotificationId())
                     .addOnSuccessListener(aVoid -> {
                         notifyDataSetChanged();
                     });
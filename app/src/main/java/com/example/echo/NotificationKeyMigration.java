@@ -0,0 +1,444 @@
+package com.example.echo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bildirim Anahtarı Taşıma
+ * Kullanıcının kutusundaki eski rastgele ID'li bildirimleri deterministik anahtarlara taşır:
+ * tekil bildirimler {recipientId}_{senderId}_{type}_{targetId} ID'sine yeniden yazılır,
+ * beğeni başına tutulan eski post beğeni bildirimleri post'un beğeni özetine katlanır.
+ * Bittiğinde notificationState/{uid}.keysMigrated işaretlenir; gönderenler artık sorgu yapmaz.
+ * Kutu sayfa sayfa okunur (limit + startAfter); yarıda kalırsa sonraki açılışta baştan,
+ * zaten taşınmış belgeleri atlayarak devam eder.
+ * Kullanıcı başına bir kez çalışır, sonuç SharedPreferences'ta saklanır; keysMigrated
+ * işaretliyse (ör. başka cihazda taşındıysa) kutu hiç okunmaz.
+ */
+public class NotificationKeyMigration {
+
+    private static final String TAG = "NotificationKeyMigration";
+    private static final String PREFS_NAME = "NotificationKeyMigrationPrefs";
+    private static final String COLLECTION_NOTIFICATIONS = "notifications";
+    private static final String COLLECTION_NOTIFICATION_STATE = "notificationState";
+    private static final int MAX_BATCH_OPS = 400; // Firestore sınırı 500
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_IN_VALUES = 30; // whereIn sınırı
+    private static final int MAX_RECENT_ACTORS = 3;
+
+    /**
+     * Gerekliyse kullanıcının bildirimlerini yeni anahtar şemasına taşı
+     */
+    public static void runIfNeeded(Context context, FirebaseFirestore db, String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean("migrated_" + userId, false)) {
+            return;
+        }
+
+        DocumentReference stateRef = db.collection(COLLECTION_NOTIFICATION_STATE).document(userId);
+        stateRef.get()
+                .addOnSuccessListener(state -> {
+                    // Başka bir cihazda taşındıysa kutu tekrar okunmaz
+                    if (Boolean.TRUE.equals(state.getBoolean(NotificationManager.FIELD_KEYS_MIGRATED))) {
+                        prefs.edit().putBoolean("migrated_" + userId, true).apply();
+                        return;
+                    }
+
+                    new Migration(db, userId, prefs, stateRef, NotificationManager.ReadState.from(state))
+                            .migratePage(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Bildirim durumu okunamadı", e);
+                });
+    }
+
+    /**
+     * Kutuyu sayfa sayfa taşıyan tek çalıştırma.
+     * Her sayfa belge ID sırasıyla okunur, yazılır ve commit edilir; sonraki sayfa
+     * startAfter ile devam eder. Sayfada olmayan anahtar belgeleri ve beğenen işaretleri
+     * ayrıca okunur, böylece sayfalar arasına bölünen gruplar da doğru birleşir
+     */
+    private static class Migration {
+        private final FirebaseFirestore db;
+        private final String userId;
+        private final SharedPreferences prefs;
+        private final DocumentReference stateRef;
+        private final NotificationManager.ReadState readState;
+        private final Set<String> clearedReadIds = new HashSet<>();
+        private int moved = 0;
+
+        Migration(FirebaseFirestore db, String userId, SharedPreferences prefs,
+                  DocumentReference stateRef, NotificationManager.ReadState readState) {
+            this.db = db;
+            this.userId = userId;
+            this.prefs = prefs;
+            this.stateRef = stateRef;
+            this.readState = readState;
+        }
+
+        void migratePage(DocumentSnapshot after) {
+            Query query = db.collection(COLLECTION_NOTIFICATIONS)
+                    .whereEqualTo("recipientId", userId)
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            if (after != null) {
+                query = query.startAfter(after);
+            }
+
+            query.get()
+                    .addOnSuccessListener(page -> {
+                        List<DocumentSnapshot> documents = page.getDocuments();
+                        migrateDocuments(documents)
+                                .addOnSuccessListener(aVoid -> {
+                                    if (documents.size() >= PAGE_SIZE) {
+                                        migratePage(documents.get(documents.size() - 1));
+                                    } else {
+                                        finish();
+                                    }
+                                })
+                                .addOnFailureListener(e -> {
+                                    Log.e(TAG, "Bildirim taşıma başarısız", e);
+                                });
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Bildirim taşıma sorgusu başarısız", e);
+                    });
+        }
+
+        /**
+         * Sayfadaki belgeleri hedef anahtarlarına göre grupla, eksik durumu oku ve yaz
+         */
+        private Task<Void> migrateDocuments(List<DocumentSnapshot> documents) {
+            Map<String, DocumentSnapshot> byId = new HashMap<>();
+            Map<String, List<DocumentSnapshot>> singles = new LinkedHashMap<>();
+            Map<String, List<DocumentSnapshot>> legacyLikes = new LinkedHashMap<>();
+            for (DocumentSnapshot document : documents) {
+                byId.put(document.getId(), document);
+                if (document.contains("actorIds")) {
+                    continue; // Beğeni özeti, zaten deterministik
+                }
+
+                String type = document.getString("type");
+                String targetId = document.getString("targetId");
+                if (Notification.TYPE_LIKE_POST.equals(type)) {
+                    legacyLikes.computeIfAbsent(NotificationManager.likeRollupId(userId,
+                            "post", targetId), k -> new ArrayList<>()).add(document);
+                } else {
+                    // Eski yorum beğenilerinde yorum ID'si yok, özete katlanamaz; tekil kalır
+                    singles.computeIfAbsent(NotificationManager.notificationId(userId,
+                            document.getString("senderId"), type, targetId),
+                            k -> new ArrayList<>()).add(document);
+                }
+            }
+
+            // Bu sayfada olmayan anahtar belgeleri (önceki sayfalarda yazılmış olabilir)
+            Map<String, Task<DocumentSnapshot>> keyTasks = new HashMap<>();
+            Set<String> keys = new HashSet<>(singles.keySet());
+            keys.addAll(legacyLikes.keySet());
+            for (String key : keys) {
+                if (!byId.containsKey(key)) {
+                    keyTasks.put(key, db.collection(COLLECTION_NOTIFICATIONS).document(key).get());
+                }
+            }
+
+            // Özette zaten sayılmış beğenenler (işaret belgeleri)
+            Map<String, List<Task<QuerySnapshot>>> markerTasks = new HashMap<>();
+            for (Map.Entry<String, List<DocumentSnapshot>> entry : legacyLikes.entrySet()) {
+                markerTasks.put(entry.getKey(), loadActorMarkers(entry.getKey(), entry.getValue()));
+            }
+
+            List<Task<?>> reads = new ArrayList<>(keyTasks.values());
+            for (List<Task<QuerySnapshot>> tasks : markerTasks.values()) {
+                reads.addAll(tasks);
+            }
+
+            return Tasks.whenAllSuccess(reads).onSuccessTask(results -> {
+                for (Map.Entry<String, Task<DocumentSnapshot>> entry : keyTasks.entrySet()) {
+                    DocumentSnapshot keyDoc = entry.getValue().getResult();
+                    if (keyDoc.exists()) {
+                        byId.put(entry.getKey(), keyDoc);
+                    }
+                }
+
+                BatchList batches = new BatchList(db);
+                for (Map.Entry<String, List<DocumentSnapshot>> entry : singles.entrySet()) {
+                    List<DocumentSnapshot> group = new ArrayList<>(entry.getValue());
+                    DocumentSnapshot keyDoc = byId.get(entry.getKey());
+                    if (keyDoc != null && !group.contains(keyDoc)) {
+                        group.add(keyDoc);
+                    }
+                    moved += rewriteSingle(db, batches, readState, entry.getKey(), group, clearedReadIds);
+                }
+                for (Map.Entry<String, List<DocumentSnapshot>> entry : legacyLikes.entrySet()) {
+                    Set<String> countedActors = new HashSet<>();
+                    for (Task<QuerySnapshot> task : markerTasks.get(entry.getKey())) {
+                        for (DocumentSnapshot marker : task.getResult().getDocuments()) {
+                            countedActors.add(marker.getId());
+                        }
+                    }
+                    moved += foldLikes(db, batches, readState, entry.getKey(), byId.get(entry.getKey()),
+                            entry.getValue(), countedActors, clearedReadIds);
+                }
+                return Tasks.whenAll(batches.commitAll());
+            });
+        }
+
+        private List<Task<QuerySnapshot>> loadActorMarkers(String rollupId, List<DocumentSnapshot> legacyDocs) {
+            List<String> senderIds = new ArrayList<>();
+            for (DocumentSnapshot document : legacyDocs) {
+                String senderId = document.getString("senderId");
+                if (senderId != null && !senderIds.contains(senderId)) {
+                    senderIds.add(senderId);
+                }
+            }
+
+            List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+            for (int start = 0; start < senderIds.size(); start += MAX_IN_VALUES) {
+                List<String> chunk = senderIds.subList(start, Math.min(start + MAX_IN_VALUES, senderIds.size()));
+                tasks.add(db.collection(COLLECTION_NOTIFICATIONS).document(rollupId)
+                        .collection(NotificationManager.COLLECTION_ROLLUP_ACTORS)
+                        .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                        .get());
+            }
+            return tasks;
+        }
+
+        /**
+         * Tüm sayfalar bitti: taşındı işaretini koy ve okunmamış sayacını düzelt
+         */
+        private void finish() {
+            // Taşınan/silinen ID'ler istisna listesinden çıkar, gönderenler artık
+            // sadece deterministik ID ile siler
+            Map<String, Object> stateUpdate = new HashMap<>();
+            stateUpdate.put(NotificationManager.FIELD_KEYS_MIGRATED, true);
+            if (!clearedReadIds.isEmpty()) {
+                stateUpdate.put(NotificationManager.FIELD_READ_IDS,
+                        FieldValue.arrayRemove(clearedReadIds.toArray()));
+            }
+
+            stateRef.set(stateUpdate, SetOptions.merge())
+                    .addOnSuccessListener(aVoid -> {
+                        prefs.edit().putBoolean("migrated_" + userId, true).apply();
+                        // Katlanan beğeniler okunmamış sayısını değiştirir, sayacı düzelt
+                        new NotificationManager(db, userId).reconcileUnreadCount();
+                        Log.d(TAG, moved + " bildirim taşındı");
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Bildirim taşıma durumu yazılamadı", e);
+                    });
+        }
+    }
+
+    /**
+     * Aynı anahtara düşen tekil bildirimlerden en yenisi anahtara yazılır, diğerleri silinir
+     * (aynı gönderenin aynı post'a birden fazla yorumu tek bildirimde birleşir)
+     */
+    private static int rewriteSingle(FirebaseFirestore db, BatchList batches,
+                                     NotificationManager.ReadState readState, String key,
+                                     List<DocumentSnapshot> documents, Set<String> clearedReadIds) {
+        DocumentSnapshot newest = null;
+        for (DocumentSnapshot document : documents) {
+            // Eşitlikte anahtardaki belge kalır (yarıda kalmış taşıma tekrar çalışabilir)
+            int compare = newest == null ? 1 : compareTimestamps(document, newest);
+            if (compare > 0 || (compare == 0 && document.getId().equals(key))) {
+                newest = document;
+            }
+        }
+        if (newest.getId().equals(key) && documents.size() == 1) {
+            return 0;
+        }
+
+        DocumentReference keyRef = db.collection(COLLECTION_NOTIFICATIONS).document(key);
+        Map<String, Object> data = newest.getId().equals(key) ? null : newest.getData();
+
+        // Yazma ve silmeler mümkünse aynı batch'te: yarıda kalırsa bildirim kaybolmaz
+        int ops = (data != null ? 1 : 0) + documents.size();
+        WriteBatch batch = ops <= MAX_BATCH_OPS ? batches.reserve(ops) : null;
+
+        if (data != null) {
+            // Okundu durumu eski ID'ye bağlıydı, belgeye taşınır
+            if (readState.isRead(newest)) {
+                data.put("read", true);
+            }
+            (batch != null ? batch : batches.reserve(1)).set(keyRef, data);
+        }
+
+        int moved = 0;
+        for (DocumentSnapshot document : documents) {
+            if (document.getId().equals(key)) continue;
+            (batch != null ? batch : batches.reserve(1)).delete(document.getReference());
+            clearedReadIds.add(document.getId());
+            moved++;
+        }
+        return moved;
+    }
+
+    /**
+     * Beğeni başına tutulan eski post beğeni bildirimlerini özet belgeye katla.
+     * Her batch kendi sildiği beğeni kadar count'u artırır (increment); batch'ler bağımsız
+     * commit edilebilir ve yarıda kalan taşıma tekrar çalıştığında çift sayım olmaz
+     */
+    private static int foldLikes(FirebaseFirestore db, BatchList batches,
+                                 NotificationManager.ReadState readState, String rollupId,
+                                 DocumentSnapshot existing, List<DocumentSnapshot> legacyDocs,
+                                 Set<String> countedActors, Set<String> clearedReadIds) {
+        // En yeni beğeni önce
+        legacyDocs.sort((a, b) -> compareTimestamps(b, a));
+        DocumentSnapshot newestLegacy = legacyDocs.get(0);
+        boolean legacyIsNewer = existing == null || compareTimestamps(newestLegacy, existing) > 0;
+
+        List<String> existingIds = existing != null ? stringList(existing.get("actorIds")) : new ArrayList<>();
+        List<String> existingNames = existing != null ? stringList(existing.get("actorNames")) : new ArrayList<>();
+
+        // Son aktörler: zaman sırasına göre özet ve eski beğeniler birleşir
+        List<String> legacyIds = new ArrayList<>();
+        List<String> legacyNames = new ArrayList<>();
+        // Özette işareti olan (veya son aktörlerde görünen) beğenen tekrar sayılmaz
+        Set<String> counted = new HashSet<>(existingIds);
+        counted.addAll(countedActors);
+        boolean allRead = existing == null || readState.isRead(existing);
+        int[] deltas = new int[legacyDocs.size()];
+        for (int i = 0; i < legacyDocs.size(); i++) {
+            DocumentSnapshot document = legacyDocs.get(i);
+            String senderId = document.getString("senderId");
+            allRead &= readState.isRead(document);
+            // Çift tıklamadan kalan kopyalar bir kez sayılır
+            if (senderId != null && counted.add(senderId)) {
+                deltas[i] = 1;
+                legacyIds.add(senderId);
+                String senderName = document.getString("senderName");
+                legacyNames.add(senderName != null ? senderName : "");
+            }
+        }
+
+        List<String> actorIds = new ArrayList<>(legacyIsNewer ? legacyIds : existingIds);
+        List<String> actorNames = new ArrayList<>(legacyIsNewer ? legacyNames : existingNames);
+        actorIds.addAll(legacyIsNewer ? existingIds : legacyIds);
+        actorNames.addAll(legacyIsNewer ? existingNames : legacyNames);
+        while (actorIds.size() > MAX_RECENT_ACTORS) {
+            actorIds.remove(actorIds.size() - 1);
+        }
+        while (actorNames.size() > actorIds.size()) {
+            actorNames.remove(actorNames.size() - 1);
+        }
+
+        Map<String, Object> base = new HashMap<>();
+        base.put("actorIds", actorIds);
+        base.put("actorNames", actorNames);
+        base.put("read", allRead);
+        if (legacyIsNewer) {
+            base.put("recipientId", newestLegacy.getString("recipientId"));
+            base.put("senderId", newestLegacy.getString("senderId"));
+            base.put("senderName", newestLegacy.getString("senderName"));
+            base.put("senderUsertag", newestLegacy.getString("senderUsertag"));
+            base.put("type", Notification.TYPE_LIKE_POST);
+            base.put("targetId", newestLegacy.getString("targetId"));
+            base.put("timestamp", newestLegacy.getTimestamp("timestamp"));
+        }
+        if (!allRead) {
+            // Okunmamış beğeni katıldı, özet tek tek okunanlar listesinden çıkar
+            clearedReadIds.add(rollupId);
+        }
+
+        // Her eski beğeni: silme + (sayıldıysa) beğenen işareti
+        DocumentReference rollupRef = db.collection(COLLECTION_NOTIFICATIONS).document(rollupId);
+        int chunkSize = (MAX_BATCH_OPS - 1) / 2;
+        for (int start = 0; start < legacyDocs.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, legacyDocs.size());
+            WriteBatch batch = batches.reserve(2 * (end - start) + 1);
+
+            int delta = 0;
+            for (int i = start; i < end; i++) {
+                DocumentSnapshot document = legacyDocs.get(i);
+                delta += deltas[i];
+                batch.delete(document.getReference());
+                clearedReadIds.add(document.getId());
+                if (deltas[i] == 1) {
+                    // Geri alındığında count'tan düşülebilmesi için beğenen sayılmış olarak işaretlenir
+                    batch.set(rollupRef.collection(NotificationManager.COLLECTION_ROLLUP_ACTORS)
+                                    .document(document.getString("senderId")),
+                            Collections.singletonMap("timestamp", document.getTimestamp("timestamp")));
+                }
+            }
+
+            Map<String, Object> data = new HashMap<>(base);
+            data.put("count", FieldValue.increment(delta));
+            batch.set(rollupRef, data, SetOptions.merge());
+        }
+        return legacyDocs.size();
+    }
+
+    private static int compareTimestamps(DocumentSnapshot a, DocumentSnapshot b) {
+        Timestamp first = a.getTimestamp("timestamp");
+        Timestamp second = b.getTimestamp("timestamp");
+        if (first == null || second == null) {
+            return first == null ? (second == null ? 0 : -1) : 1;
+        }
+        return first.compareTo(second);
+    }
+
+    private static List<String> stringList(Object value) {
+        List<String> list = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                list.add(String.valueOf(item));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * İşlem sayısı sınırını aşmadan batch'lere dağıtır
+     */
+    private static class BatchList {
+        private final FirebaseFirestore db;
+        private final List<WriteBatch> batches = new ArrayList<>();
+        private int opsInCurrent = MAX_BATCH_OPS;
+
+        BatchList(FirebaseFirestore db) {
+            this.db = db;
+        }
+
+        WriteBatch reserve(int ops) {
+            if (opsInCurrent + ops > MAX_BATCH_OPS) {
+                batches.add(db.batch());
+                opsInCurrent = 0;
+            }
+            opsInCurrent += ops;
+            return batches.get(batches.size() - 1);
+        }
+
+        List<Task<Void>> commitAll() {
+            List<Task<Void>> commits = new ArrayList<>();
+            for (WriteBatch batch : batches) {
+                commits.add(batch.commit());
+            }
+            return commits;
+        }
+    }
+}
@@ -1,10 +1,30 @@
 package com.example.echo;
 
 import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Merkezi Bildirim Yönetim Sistemi
@@ -14,6 +34,15 @@ public class NotificationManager {
 
     private static final String TAG = "NotificationManager";
     private static final String COLLECTION_NOTIFICATIONS = "notifications";
+    private static final String COLLECTION_NOTIFICATION_STATE = "notificationState";
+    private static final String COLLECTION_LIKES = "likes";
+    static final String FIELD_LAST_READ_AT = "lastReadAt";
+    static final String FIELD_READ_IDS = "readIds";
+    static final String FIELD_UNREAD_COUNT = "unreadCount";
+    static final String FIELD_KEYS_MIGRATED = "keysMigrated"; // Eski rastgele ID'ler taşındı mı
+    private static final int MAX_RECENT_ACTORS = 3; // Özette saklanan son beğenen sayısı
+    private static final int MAX_IN_VALUES = 30; // whereIn sınırı
+    static final String COLLECTION_ROLLUP_ACTORS = "actors"; // Özette sayılan her beğenen için işaret
 
     private final FirebaseFirestore db;
     private final String currentUserId;
@@ -23,47 +52,6 @@ public class NotificationManager {
         this.currentUserId = currentUserId;
     }
 
-    /**
-     * Post beğeni bildirimi oluştur
-     */
-    public void createLikePostNotification(String postId, String postOwnerId,
-                                           String senderName, String senderUsertag) {
-        // Kendi postunu beğendiyse bildirim gönderme
-        if (currentUserId.equals(postOwnerId)) {
-            return;
-        }
-
-        createNotification(
-                postOwnerId,
-                Notification.TYPE_LIKE_POST,
-                postId,
-                senderName,
-                senderUsertag,
-                null
-        );
-    }
-
-    /**
-     * Comment beğeni bildirimi oluştur
-     */
-    public void createLikeCommentNotification(String commentId, String commentOwnerId,
-                                              String postId, String senderName,
-                                              String senderUsertag) {
-        // Kendi yorumunu beğendiyse bildirim gönderme
-        if (currentUserId.equals(commentOwnerId)) {
-            return;
-        }
-
-        createNotification(
-                commentOwnerId,
-                Notification.TYPE_LIKE_COMMENT,
-                postId,
-                senderName,
-                senderUsertag,
-                null
-        );
-    }
-
     /**
      * Yorum bildirimi oluştur
      */
@@ -100,12 +88,210 @@ public class NotificationManager {
         );
     }
 
+    /**
+     * Tekil bildirimin deterministik ID'si: {recipientId}_{senderId}_{type}_{targetId}
+     * Aynı olay tekrar yazılırsa aynı belgenin üzerine gelir, geri alındığında sorgusuz silinir
+     */
+    public static String notificationId(String recipientId, String senderId, String type,
+                                        String targetId) {
+        return recipientId + "_" + senderId + "_" + type + "_" + targetId;
+    }
+
+    /**
+     * Beğeni özet belgesinin deterministik ID'si: {recipientId}_{type}_{targetId}
+     * (targetId beğenilen post veya yorum)
+     */
+    public static String likeRollupId(String recipientId, String targetType, String targetId) {
+        return recipientId + "_" + likeNotificationType(targetType) + "_" + targetId;
+    }
+
+    private static String likeNotificationType(String targetType) {
+        return "post".equals(targetType) ? Notification.TYPE_LIKE_POST : Notification.TYPE_LIKE_COMMENT;
+    }
+
+    /**
+     * Beğeni özetini güncelle (beğeni commit edildikten sonra, kendi transaction'ında)
+     * Beğeni bu yazmaya bağlı değildir: popüler bir hedefin özetinde çekişme olursa sadece
+     * bildirim güncellemesi başarısız olur ve çağıran tekrar dener. Transaction beğeni belgesini
+     * de okur; beğeni bu arada tekrar değiştiyse hiçbir şey yazmaz (özeti yeni işlem günceller),
+     * bu yüzden geç kalan bir tekrar deneme eski durumu geri getiremez.
+     * Sonuç: alıcının kutusunda eski tekil bildirim olabilir mi
+     */
+    public Task<Boolean> updateLikeRollup(String targetType, String targetId, String ownerId,
+                                          boolean like, String postId, String senderName,
+                                          String senderUsertag) {
+        if (ownerId == null || currentUserId.equals(ownerId)) {
+            return Tasks.forResult(false);
+        }
+
+        return db.runTransaction(transaction -> {
+            LikeRollup rollup = readLikeRollup(transaction, targetType, targetId, ownerId);
+            if (rollup.liked != like) {
+                return false;
+            }
+            writeLikeRollup(transaction, rollup, like, postId, senderName, senderUsertag);
+            return rollup.hasLegacyNotifications();
+        });
+    }
+
+    /**
+     * Özet transaction'ının okuma aşaması: özet belge, kullanıcının sayıldı işareti, beğeni belgesi ve
+     * alıcının okundu durumu (Firestore transaction'larında tüm okumalar yazmalardan önce yapılmalı)
+     */
+    private LikeRollup readLikeRollup(Transaction transaction, String targetType, String targetId,
+                                     String ownerId) throws FirebaseFirestoreException {
+        DocumentReference rollupRef = db.collection(COLLECTION_NOTIFICATIONS)
+                .document(likeRollupId(ownerId, targetType, targetId));
+        DocumentReference actorRef = rollupRef.collection(COLLECTION_ROLLUP_ACTORS).document(currentUserId);
+        DocumentReference stateRef = stateRef(ownerId);
+        DocumentReference likeRef = db.collection(COLLECTION_LIKES)
+                .document(LikeManager.likeDocumentId(currentUserId, targetType, targetId));
+
+        return new LikeRollup(ownerId, likeNotificationType(targetType), rollupRef, actorRef, stateRef,
+                transaction.get(rollupRef), transaction.get(actorRef), transaction.get(stateRef),
+                transaction.get(likeRef).exists());
+    }
+
+    /**
+     * Özet transaction'ının yazma aşaması
+     * Beğenide sayı artar (kullanıcı zaten sayılmıyorsa), kullanıcı son aktörlerin başına geçer ve
+     * özet tekrar okunmamış olur.
+     * Geri almada sayı azalır; sıfıra inerse özet silinir
+     */
+    private void writeLikeRollup(Transaction transaction, LikeRollup rollup, boolean like,
+                                 String postId, String senderName, String senderUsertag) {
+        if (currentUserId.equals(rollup.ownerId)) {
+            return;
+        }
+
+        DocumentSnapshot existing = rollup.snapshot;
+        boolean wasUnread = existing.exists() && !ReadState.from(rollup.state).isRead(existing);
+        Long storedCount = existing.getLong("count");
+        long count = storedCount != null ? storedCount : 0;
+        List<String> actorIds = stringList(existing.get("actorIds"));
+        List<String> actorNames = stringList(existing.get("actorNames"));
+
+        // Kullanıcının önceki yeri (varsa) çıkarılır
+        int index = actorIds.indexOf(currentUserId);
+        if (index != -1) {
+            actorIds.remove(index);
+            if (index < actorNames.size()) actorNames.remove(index);
+        }
+
+        // Sadece işareti olan (veya son aktörlerde görünen) kullanıcı count'a dahildir;
+        // özetten önceki tekil bildirimi olan eski beğenenler sayılmaz
+        boolean counted = existing.exists() && (rollup.actor.exists() || index != -1);
+
+        if (like) {
+            actorIds.add(0, currentUserId);
+            actorNames.add(0, senderName != null ? senderName : "");
+            while (actorIds.size() > MAX_RECENT_ACTORS) {
+                actorIds.remove(actorIds.size() - 1);
+                actorNames.remove(actorNames.size() - 1);
+            }
+
+            Map<String, Object> data = buildNotificationData(rollup.ownerId, rollup.type,
+                    postId, senderName, senderUsertag, null);
+            data.put("count", counted ? count : count + 1);
+            data.put("actorIds", actorIds);
+            data.put("actorNames", actorNames);
+            transaction.set(rollup.rollupRef, data);
+            transaction.set(rollup.actorRef, Collections.singletonMap("timestamp",
+                    FieldValue.serverTimestamp()));
+
+            // Yeni zaman damgası watermark'ın üstüne çıkar; tek tek okunmuş işareti kalkar.
+            // Özet zaten okunmamışsa readIds'te olamaz ve sayıya dahildir: sahibin durum belgesine
+            // her beğenide yazılmaz, sadece okunmuştan okunmamışa geçişte yazılır
+            if (!wasUnread) {
+                Map<String, Object> stateUpdate = new HashMap<>();
+                stateUpdate.put(FIELD_READ_IDS, FieldValue.arrayRemove(rollup.rollupRef.getId()));
+                stateUpdate.put(FIELD_UNREAD_COUNT, FieldValue.increment(1));
+                transaction.set(rollup.stateRef, stateUpdate, SetOptions.merge());
+            }
+            return;
+        }
+
+        // Geri alma: kullanıcı bu özette sayılmıyorsa (eski tekil bildirim) count'a dokunma
+        if (rollup.actor.exists()) {
+            transaction.delete(rollup.actorRef);
+        }
+        if (!counted) {
+            return;
+        }
+
+        if (count <= 1) {
+            transaction.delete(rollup.rollupRef);
+            if (wasUnread) {
+                transaction.set(rollup.stateRef, unreadCountDelta(-1), SetOptions.merge());
+            }
+            return;
+        }
+
+        Map<String, Object> update = new HashMap<>();
+        update.put("count", count - 1);
+        update.put("actorIds", actorIds);
+        update.put("actorNames", actorNames);
+        if (index == 0) {
+            // Son beğenen geri aldı: görünen gönderen bir sonraki aktör olur
+            update.put("senderId", actorIds.isEmpty() ? null : actorIds.get(0));
+            update.put("senderName", actorNames.isEmpty() ? null : actorNames.get(0));
+            update.put("senderUsertag", null);
+        }
+        transaction.update(rollup.rollupRef, update);
+    }
+
+    private static List<String> stringList(Object value) {
+        List<String> list = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                list.add(String.valueOf(item));
+            }
+        }
+        return list;
+    }
+
     /**
      * Genel bildirim oluşturma metodu
+     * Belge deterministik ID'ye set() edilir: tekrarlanan olay kopya üretmez.
+     * Sayaç sadece belge daha önce okunmamış olarak durmuyorsa artar
      */
     private void createNotification(String recipientId, String type, String targetId,
                                     String senderName, String senderUsertag,
                                     String content) {
+        Map<String, Object> notificationData = buildNotificationData(
+                recipientId, type, targetId, senderName, senderUsertag, content);
+
+        DocumentReference notificationRef = db.collection(COLLECTION_NOTIFICATIONS)
+                .document(notificationId(recipientId, currentUserId, type, targetId));
+        DocumentReference stateRef = stateRef(recipientId);
+
+        db.runTransaction(transaction -> {
+            DocumentSnapshot existing = transaction.get(notificationRef);
+            DocumentSnapshot state = transaction.get(stateRef);
+            boolean wasUnread = existing.exists() && !ReadState.from(state).isRead(existing);
+
+            transaction.set(notificationRef, notificationData);
+
+            // Yeni zaman damgası watermark'ın üstüne çıkar; tek tek okunmuş işareti kalkar
+            Map<String, Object> stateUpdate = new HashMap<>();
+            stateUpdate.put(FIELD_READ_IDS, FieldValue.arrayRemove(notificationRef.getId()));
+            if (!wasUnread) {
+                stateUpdate.put(FIELD_UNREAD_COUNT, FieldValue.increment(1));
+            }
+            transaction.set(stateRef, stateUpdate, SetOptions.merge());
+            return null;
+        })
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Bildirim oluşturuldu: " + notificationRef.getId());
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Bildirim oluşturulamadı", e);
+                });
+    }
+
+    private Map<String, Object> buildNotificationData(String recipientId, String type, String targetId,
+                                                      String senderName, String senderUsertag,
+                                                      String content) {
         Map<String, Object> notificationData = new HashMap<>();
         notificationData.put("recipientId", recipientId);
         notificationData.put("senderId", currentUserId);
@@ -114,20 +300,13 @@ public class NotificationManager {
         notificationData.put("type", type);
         notificationData.put("targetId", targetId);
         notificationData.put("timestamp", FieldValue.serverTimestamp());
-        notificationData.put("read", false);
+        // Okundu durumu belgede tutulmaz, notificationState/{uid} watermark'ından türetilir
 
         if (content != null) {
             notificationData.put("content", content);
         }
 
-        db.collection(COLLECTION_NOTIFICATIONS)
-                .add(notificationData)
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "Bildirim oluşturuldu: " + documentReference.getId());
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Bildirim oluşturulamadı", e);
-                });
+        return notificationData;
     }
 
     /**
@@ -153,8 +332,41 @@ public class NotificationManager {
 
     /**
      * Bildirim silme metodu
+     * Deterministik ID ile tek belge silinir; alıcının eski bildirimleri henüz taşınmadıysa
+     * rastgele ID'li kopyalar sorgu ile de aranır
      */
     private void deleteNotification(String recipientId, String type, String targetId) {
+        DocumentReference notificationRef = db.collection(COLLECTION_NOTIFICATIONS)
+                .document(notificationId(recipientId, currentUserId, type, targetId));
+        DocumentReference stateRef = stateRef(recipientId);
+
+        db.runTransaction(transaction -> {
+            DocumentSnapshot notification = transaction.get(notificationRef);
+            DocumentSnapshot state = transaction.get(stateRef);
+
+            if (notification.exists()) {
+                transaction.delete(notificationRef);
+                if (!ReadState.from(state).isRead(notification)) {
+                    transaction.set(stateRef, unreadCountDelta(-1), SetOptions.merge());
+                }
+            }
+            return Boolean.TRUE.equals(state.getBoolean(FIELD_KEYS_MIGRATED));
+        })
+                .addOnSuccessListener(keysMigrated -> {
+                    Log.d(TAG, "Bildirim silindi: " + notificationRef.getId());
+                    if (!keysMigrated) {
+                        deleteLegacyNotifications(recipientId, type, targetId);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Bildirim silinemedi", e);
+                });
+    }
+
+    /**
+     * Eski (rastgele ID'li) bildirimleri sorgu ile bul ve sil
+     */
+    private void deleteLegacyNotifications(String recipientId, String type, String targetId) {
         db.collection(COLLECTION_NOTIFICATIONS)
                 .whereEqualTo("recipientId", recipientId)
                 .whereEqualTo("senderId", currentUserId)
@@ -163,7 +375,13 @@ public class NotificationManager {
                 .get()
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     queryDocumentSnapshots.forEach(document -> {
-                        document.getReference().delete()
+                        // Beğeni özetleri transaction içinde güncellenir, burada sadece tekil belgeler silinir
+                        if (document.contains("actorIds")) return;
+                        // Deterministik belge yukarıda silindi
+                        if (document.getId().equals(notificationId(recipientId, currentUserId,
+                                type, targetId))) return;
+
+                        deleteAndUncount(document.getReference(), recipientId)
                                 .addOnSuccessListener(aVoid -> {
                                     Log.d(TAG, "Bildirim silindi: " + document.getId());
                                 })
@@ -173,21 +391,206 @@ public class NotificationManager {
                     });
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Bildirim sorgusu başarısız", e);
+                    Log.e(TAG, "Eski bildirim sorgusu başarısız", e);
+                });
+    }
+
+    /**
+     * Bildirimi sil; okunmamışsa alıcının sayacını aynı transaction içinde azalt
+     */
+    private Task<Void> deleteAndUncount(DocumentReference notificationRef, String recipientId) {
+        DocumentReference stateRef = stateRef(recipientId);
+
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot notification = transaction.get(notificationRef);
+            DocumentSnapshot state = transaction.get(stateRef);
+            if (!notification.exists()) {
+                return null;
+            }
+
+            transaction.delete(notificationRef);
+            if (!ReadState.from(state).isRead(notification)) {
+                transaction.set(stateRef, unreadCountDelta(-1), SetOptions.merge());
+            }
+            return null;
+        });
+    }
+
+    private static Map<String, Object> unreadCountDelta(long delta) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(FIELD_UNREAD_COUNT, FieldValue.increment(delta));
+        return update;
+    }
+
+    /**
+     * Okundu durumunu oku (watermark + tek tek okunanlar)
+     */
+    public void loadReadState(OnReadStateCallback callback) {
+        readStateRef().get()
+                .addOnSuccessListener(snapshot -> callback.onReadState(ReadState.from(snapshot)))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Okundu durumu alınamadı", e);
+                    callback.onReadState(new ReadState(null, new HashSet<>()));
                 });
     }
 
+    /**
+     * Tümünü okundu işaretle: bildirim sayısından bağımsız tek yazma.
+     * Watermark ilerler, artık altında kalan tek tek okunanlar listesi boşaltılır.
+     * Merge ile yazılır: aynı belgedeki keysMigrated gibi alanlar korunur
+     */
+    public Task<Void> markAllAsRead() {
+        return readStateRef().set(markAllAsReadUpdate(), SetOptions.merge());
+    }
+
+    /**
+     * markAllAsRead'in yazdığı alanlar (sadece okundu durumu, diğer alanlara dokunmaz)
+     */
+    static Map<String, Object> markAllAsReadUpdate() {
+        Map<String, Object> state = new HashMap<>();
+        state.put(FIELD_LAST_READ_AT, FieldValue.serverTimestamp());
+        state.put(FIELD_READ_IDS, new ArrayList<String>());
+        state.put(FIELD_UNREAD_COUNT, 0);
+        return state;
+    }
+
+    /**
+     * Tek bir bildirimi okundu işaretle (watermark'ın üstündeki istisna listesine eklenir)
+     */
+    public Task<Void> markAsRead(String notificationId) {
+        DocumentReference stateRef = readStateRef();
+        DocumentReference notificationRef = db.collection(COLLECTION_NOTIFICATIONS).document(notificationId);
+
+        // Sayaç sadece okunmamış sayılan bildirim için azalır: tekrar okuma, watermark'ın altındaki
+        // veya eski şemada read=true olan bildirim ya da silinmiş belge sayacı düşürmez
+        return db.runTransaction(transaction -> {
+            DocumentSnapshot state = transaction.get(stateRef);
+            DocumentSnapshot notification = transaction.get(notificationRef);
+            if (!notification.exists() || ReadState.from(state).isRead(notification)) {
+                return null;
+            }
+
+            Map<String, Object> update = unreadCountDelta(-1);
+            update.put(FIELD_READ_IDS, FieldValue.arrayUnion(notificationId));
+            transaction.set(stateRef, update, SetOptions.merge());
+            return null;
+        });
+    }
+
+    private DocumentReference readStateRef() {
+        return stateRef(currentUserId);
+    }
+
+    private DocumentReference stateRef(String userId) {
+        return db.collection(COLLECTION_NOTIFICATION_STATE).document(userId);
+    }
+
+    /**
+     * Okunmamış sayısını tek bir snapshot listener ile canlı dinle (rozet için)
+     */
+    public ListenerRegistration listenUnreadCount(OnCountCallback callback) {
+        return readStateRef().addSnapshotListener((snapshot, error) -> {
+            if (error != null || snapshot == null) {
+                return;
+            }
+
+            Long count = snapshot.getLong(FIELD_UNREAD_COUNT);
+            // Sayaç eşzamanlı silmelerde kısa süreliğine sapabilir, negatif gösterme
+            callback.onResult(count != null ? (int) Math.max(0, count) : 0);
+        });
+    }
+
+    /**
+     * Sayacı sunucu tarafı count() sonucuyla düzelt (sayaç sapmış veya hiç yoksa)
+     * Yazma transaction'da yapılır: sayım sırasında durum belgesi değiştiyse (yeni bildirim
+     * artışı, okundu işareti) sayım eskidir ve yazılmaz, eş zamanlı artışlar kaybolmaz
+     */
+    public void reconcileUnreadCount() {
+        DocumentReference stateRef = readStateRef();
+
+        stateRef.get().addOnSuccessListener(snapshot ->
+                countUnread(ReadState.from(snapshot), count -> {
+                    Long stored = snapshot.getLong(FIELD_UNREAD_COUNT);
+                    if (stored != null && stored == count) {
+                        return;
+                    }
+
+                    db.runTransaction(transaction -> {
+                        DocumentSnapshot current = transaction.get(stateRef);
+                        if (!sameReadState(snapshot, current)) {
+                            return false;
+                        }
+                        transaction.set(stateRef, Collections.singletonMap(FIELD_UNREAD_COUNT, count),
+                                SetOptions.merge());
+                        return true;
+                    }).addOnSuccessListener(corrected -> {
+                        if (corrected) {
+                            Log.d(TAG, "Okunmamış sayacı düzeltildi: " + stored + " -> " + count);
+                        }
+                    }).addOnFailureListener(e -> Log.e(TAG, "Okunmamış sayacı düzeltilemedi", e));
+                }));
+    }
+
+    /**
+     * Sayımın dayandığı alanlar (sayaç, watermark, tek tek okunanlar) iki okuma arasında aynı mı?
+     */
+    private static boolean sameReadState(DocumentSnapshot counted, DocumentSnapshot current) {
+        return Objects.equals(counted.getLong(FIELD_UNREAD_COUNT), current.getLong(FIELD_UNREAD_COUNT))
+                && Objects.equals(counted.getTimestamp(FIELD_LAST_READ_AT),
+                        current.getTimestamp(FIELD_LAST_READ_AT))
+                && Objects.equals(counted.get(FIELD_READ_IDS), current.get(FIELD_READ_IDS));
+    }
+
     /**
      * Kullanıcının okunmamış bildirim sayısını al
+     * Belgeler indirilmez, watermark'ın üstü sunucuda sayılır
      */
     public void getUnreadNotificationCount(OnCountCallback callback) {
-        db.collection(COLLECTION_NOTIFICATIONS)
-                .whereEqualTo("recipientId", currentUserId)
-                .whereEqualTo("read", false)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    int count = queryDocumentSnapshots.size();
-                    callback.onResult(count);
+        loadReadState(readState -> countUnread(readState, callback));
+    }
+
+    /**
+     * Watermark'tan yeni bildirimler - eski şemada okunmuş olanlar - tek tek okunanlar
+     * (iki count() aggregation; readIds'teki belgeler ayrıca okunur, silinmiş, watermark'ın
+     * altına düşmüş veya zaten read=true sayılmış olanlar iki kez düşülmez)
+     */
+    private void countUnread(ReadState readState, OnCountCallback callback) {
+        Query aboveWatermark = db.collection(COLLECTION_NOTIFICATIONS)
+                .whereEqualTo("recipientId", currentUserId);
+        if (readState.getLastReadAt() != null) {
+            aboveWatermark = aboveWatermark.whereGreaterThan("timestamp", readState.getLastReadAt());
+        }
+
+        Task<AggregateQuerySnapshot> totalTask = aboveWatermark.count().get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> legacyReadTask = aboveWatermark.whereEqualTo("read", true)
+                .count().get(AggregateSource.SERVER);
+
+        List<Task<QuerySnapshot>> readIdTasks = new ArrayList<>();
+        List<String> readIds = new ArrayList<>(readState.readIds);
+        for (int start = 0; start < readIds.size(); start += MAX_IN_VALUES) {
+            List<String> chunk = readIds.subList(start, Math.min(start + MAX_IN_VALUES, readIds.size()));
+            readIdTasks.add(db.collection(COLLECTION_NOTIFICATIONS)
+                    .whereEqualTo("recipientId", currentUserId)
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get());
+        }
+
+        List<Task<?>> tasks = new ArrayList<>(readIdTasks);
+        tasks.add(totalTask);
+        tasks.add(legacyReadTask);
+
+        Tasks.whenAllSuccess(tasks)
+                .addOnSuccessListener(results -> {
+                    long count = totalTask.getResult().getCount()
+                            - legacyReadTask.getResult().getCount();
+                    for (Task<QuerySnapshot> task : readIdTasks) {
+                        for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                            if (isCountedUnread(document, readState.getLastReadAt())) {
+                                count--;
+                            }
+                        }
+                    }
+                    callback.onResult((int) Math.max(0, count));
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Okunmamış bildirim sayısı alınamadı", e);
@@ -195,8 +598,104 @@ public class NotificationManager {
                 });
     }
 
-    // Callback Interface
+    /**
+     * Belge, countUnread'in toplamından düşülmemiş bir watermark üstü bildirim mi?
+     */
+    private static boolean isCountedUnread(DocumentSnapshot document, Timestamp lastReadAt) {
+        if (Boolean.TRUE.equals(document.getBoolean("read"))) {
+            return false; // Eski şemada okunmuş, zaten düşüldü
+        }
+        if (lastReadAt == null) {
+            return true;
+        }
+        Timestamp timestamp = document.getTimestamp("timestamp");
+        return timestamp != null && timestamp.compareTo(lastReadAt) > 0;
+    }
+
+    /**
+     * Beğeni özetinin transaction içinde okunmuş hali (readLikeRollup -> writeLikeRollup)
+     */
+    private static class LikeRollup {
+        private final String ownerId;
+        private final String type;
+        private final DocumentReference rollupRef;
+        private final DocumentReference actorRef;
+        private final DocumentReference stateRef;
+        private final DocumentSnapshot snapshot;
+        private final DocumentSnapshot actor;
+        private final DocumentSnapshot state;
+        private final boolean liked; // Beğeni belgesi şu an var mı
+
+        /**
+         * Alıcının kutusunda özetten önceki tekil (rastgele ID'li) beğeni bildirimleri olabilir mi?
+         */
+        boolean hasLegacyNotifications() {
+            return !Boolean.TRUE.equals(state.getBoolean(FIELD_KEYS_MIGRATED));
+        }
+
+        LikeRollup(String ownerId, String type, DocumentReference rollupRef, DocumentReference actorRef,
+                   DocumentReference stateRef, DocumentSnapshot snapshot, DocumentSnapshot actor,
+                   DocumentSnapshot state, boolean liked) {
+            this.ownerId = ownerId;
+            this.type = type;
+            this.rollupRef = rollupRef;
+            this.actorRef = actorRef;
+            this.stateRef = stateRef;
+            this.snapshot = snapshot;
+            this.actor = actor;
+            this.state = state;
+            this.liked = liked;
+        }
+    }
+
+    /**
+     * Okundu Durumu
+     * lastReadAt'e kadar olan tüm bildirimler okunmuştur; readIds watermark'ın üstünde
+     * tek tek açılmış bildirimlerdir
+     */
+    public static class ReadState {
+        private final Timestamp lastReadAt;
+        private final Set<String> readIds;
+
+        ReadState(Timestamp lastReadAt, Set<String> readIds) {
+            this.lastReadAt = lastReadAt;
+            this.readIds = readIds;
+        }
+
+        static ReadState from(DocumentSnapshot snapshot) {
+            Set<String> readIds = new HashSet<>();
+            Object stored = snapshot.get(FIELD_READ_IDS);
+            if (stored instanceof List) {
+                for (Object id : (List<?>) stored) {
+                    readIds.add(String.valueOf(id));
+                }
+            }
+            return new ReadState(snapshot.getTimestamp(FIELD_LAST_READ_AT), readIds);
+        }
+
+        public Timestamp getLastReadAt() { return lastReadAt; }
+
+        public boolean isRead(String notificationId, Timestamp timestamp) {
+            if (readIds.contains(notificationId)) {
+                return true;
+            }
+            // Sunucu zamanı henüz atanmamış (yeni yazılmış) bildirim okunmamıştır
+            return lastReadAt != null && timestamp != null && timestamp.compareTo(lastReadAt) <= 0;
+        }
+
+        public boolean isRead(DocumentSnapshot document) {
+            // Eski şemadaki belge başına "read" bayrağı da geçerli
+            return Boolean.TRUE.equals(document.getBoolean("read"))
+                    || isRead(document.getId(), document.getTimestamp("timestamp"));
+        }
+    }
+
+    // Callback Interfaces
     public interface OnCountCallback {
         void onResult(int count);
     }
+
+    public interface OnReadStateCallback {
+        void onReadState(ReadState readState);
+    }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -33,11 +34,19 @@ public class NotificationsActivity extends AppCompatActivity {
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
     private FirebaseUser currentUser;
+    private NotificationManager notificationManager;
     private LocalImageManager localImageManager;
     private NotificationAdapter notificationAdapter;
-    private List<Notification> notificationList;
+    private List<Notification> notificationList;   // Seçili tab'ın görünümü (adapter'a bağlı)
+    private List<Notification> allNotifications;   // Yüklenen tüm sayfalar (tek akış)
+    private QueryPager notificationPager;
+    private NotificationManager.ReadState readState;
     private int currentTab = 0; // 0: Tümü, 1: Beğeniler, 2: Yorumlar
 
+    private static final int PAGE_SIZE = 20;
+    private static final int PREFETCH_THRESHOLD = 5; // Sona 5 bildirim kala sonraki sayfayı çek
+    private static final int MAX_FILL_PAGES = 5;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -47,7 +56,7 @@ public class NotificationsActivity extends AppCompatActivity {
         mAuth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
         currentUser = mAuth.getCurrentUser();
-        localImageManager = new LocalImageManager(this);
+        localImageManager = LocalImageManager.getInstance(this);
 
         if (currentUser == null) {
             Toast.makeText(this, "Lütfen giriş yapın", Toast.LENGTH_SHORT).show();
@@ -55,6 +64,8 @@ public class NotificationsActivity extends AppCompatActivity {
             return;
         }
 
+        notificationManager = new NotificationManager(db, currentUser.getUid());
+
         initViews();
         setupRecyclerView();
         setupListeners();
@@ -73,9 +84,25 @@ public class NotificationsActivity extends AppCompatActivity {
 
     private void setupRecyclerView() {
         notificationList = new ArrayList<>();
-        notificationAdapter = new NotificationAdapter(notificationList, localImageManager);
-        notificationsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        allNotifications = new ArrayList<>();
+        notificationAdapter = new NotificationAdapter(notificationList, localImageManager,
+                notificationManager);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        notificationsRecyclerView.setLayoutManager(layoutManager);
         notificationsRecyclerView.setAdapter(notificationAdapter);
+
+        // Listenin sonuna yaklaşınca bir sonraki sayfayı önceden yükle
+        notificationsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || notificationPager == null) return;
+
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= notificationList.size() - PREFETCH_THRESHOLD) {
+                    notificationPager.loadNextPage(pageCallback);
+                }
+            }
+        });
     }
 
     private void setupListeners() {
@@ -88,8 +115,9 @@ public class NotificationsActivity extends AppCompatActivity {
         notificationTabLayout.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
             @Override
             public void onTabSelected(TabLayout.Tab tab) {
+                // Tab'lar yüklenmiş akışın filtreleridir, ağa gidilmez
                 currentTab = tab.getPosition();
-                loadNotifications();
+                applyTabFilter();
             }
 
             @Override
@@ -110,84 +138,118 @@ public class NotificationsActivity extends AppCompatActivity {
     private void loadNotifications() {
         showLoading(true);
 
-        Query query = db.collection("notifications")
-                .whereEqualTo("recipientId", currentUser.getUid())
-                .orderBy("timestamp", Query.Direction.DESCENDING);
-
-        // Tab'e göre filtrele
-        if (currentTab == 1) {
-            // Sadece beğeniler
-            query = query.whereIn("type",
-                    java.util.Arrays.asList(
-                            Notification.TYPE_LIKE_POST,
-                            Notification.TYPE_LIKE_COMMENT
-                    ));
-        } else if (currentTab == 2) {
-            // Sadece yorumlar
-            query = query.whereEqualTo("type", Notification.TYPE_COMMENT);
+        if (notificationPager == null) {
+            // Tüm türler tek sorguda; sayfalar startAfter ile devam eder
+            notificationPager = new QueryPager(db.collection("notifications")
+                    .whereEqualTo("recipientId", currentUser.getUid())
+                    .orderBy("timestamp", Query.Direction.DESCENDING), PAGE_SIZE);
         }
 
-        query.get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    notificationList.clear();
-
-                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        Notification notification = document.toObject(Notification.class);
-                        if (notification != null) {
-                            notification.setNotificationId(document.getId());
-
-                            // Timestamp'den timeAgo hesapla
-                            Timestamp timestamp = document.getTimestamp("timestamp");
-                            if (timestamp != null) {
-                                notification.setTimeAgo(calculateTimeAgo(timestamp.toDate()));
-                            } else {
-                                notification.setTimeAgo("Şimdi");
-                            }
-
-                            notificationList.add(notification);
-                        }
-                    }
+        // Okunmamış durumu watermark'tan türetilir, önce okundu durumunu al
+        notificationManager.loadReadState(state -> {
+            readState = state;
+            notificationPager.loadFirstPage(pageCallback);
+        });
+    }
 
-                    notificationAdapter.notifyDataSetChanged();
-                    showLoading(false);
+    private final QueryPager.OnPageCallback pageCallback = new QueryPager.OnPageCallback() {
+        @Override
+        public void onPageLoaded(List<DocumentSnapshot> documents, boolean isFirstPage) {
+            if (isFirstPage) {
+                allNotifications.clear();
+            }
 
-                    if (notificationList.isEmpty()) {
-                        showEmptyState(true);
+            for (DocumentSnapshot document : documents) {
+                Notification notification = document.toObject(Notification.class);
+                if (notification != null) {
+                    notification.setNotificationId(document.getId());
+                    notification.setRead(readState.isRead(document));
+
+                    // Timestamp'den timeAgo hesapla
+                    Timestamp timestamp = document.getTimestamp("timestamp");
+                    if (timestamp != null) {
+                        notification.setTimeAgo(calculateTimeAgo(timestamp.toDate()));
                     } else {
-                        showEmptyState(false);
+                        notification.setTimeAgo("Şimdi");
                     }
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Bildirimler yüklenemedi: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                });
+
+                    allNotifications.add(notification);
+                }
+            }
+
+            showLoading(false);
+            applyTabFilter();
+
+            // Seçili tab'ı kaydırılabilir kadar dolduracak eşleşme yoksa sonraki sayfayı da çek
+            // (en fazla MAX_FILL_PAGES sayfaya kadar; sonrası kaydırmayla gelir)
+            if (notificationList.size() < PAGE_SIZE && notificationPager.hasMore()
+                    && allNotifications.size() < PAGE_SIZE * MAX_FILL_PAGES) {
+                notificationPager.loadNextPage(pageCallback);
+            }
+        }
+
+        @Override
+        public void onFailure(String error) {
+            showLoading(false);
+            Toast.makeText(NotificationsActivity.this, "Bildirimler yüklenemedi: " + error,
+                    Toast.LENGTH_SHORT).show();
+        }
+    };
+
+    /**
+     * Yüklenmiş akıştan seçili tab'ın görünümünü kur (bellek içi, ağ yok)
+     */
+    private void applyTabFilter() {
+        notificationList.clear();
+        for (Notification notification : allNotifications) {
+            if (matchesTab(notification, currentTab)) {
+                notificationList.add(notification);
+            }
+        }
+
+        notificationAdapter.notifyDataSetChanged();
+        showEmptyState(notificationList.isEmpty());
     }
 
-    private void markAllAsRead() {
-        if (notificationList.isEmpty()) {
-            Toast.makeText(this, "Okunmamış bildirim yok", Toast.LENGTH_SHORT).show();
-            return;
+    private static boolean matchesTab(Notification notification, int tab) {
+        String type = notification.getType();
+        if (tab == 1) {
+            // Sadece beğeniler
+            return Notification.TYPE_LIKE_POST.equals(type) || Notification.TYPE_LIKE_COMMENT.equals(type);
+        } else if (tab == 2) {
+            // Sadece yorumlar
+            return Notification.TYPE_COMMENT.equals(type);
         }
+        return true;
+    }
 
+    private void markAllAsRead() {
         int unreadCount = 0;
-        for (Notification notification : notificationList) {
+        for (Notification notification : allNotifications) {
             if (!notification.isRead()) {
                 unreadCount++;
-                db.collection("notifications")
-                        .document(notification.getNotificationId())
-                        .update("read", true);
             }
         }
 
-        if (unreadCount > 0) {
-            Toast.makeText(this, unreadCount + " bildirim okundu işaretlendi",
-                    Toast.LENGTH_SHORT).show();
-            loadNotifications();
-        } else {
+        if (unreadCount == 0) {
             Toast.makeText(this, "Tüm bildirimler zaten okunmuş",
                     Toast.LENGTH_SHORT).show();
+            return;
         }
+
+        // Tek yazma: watermark'ı ilerlet, liste yeniden sorgulanmaz
+        int markedCount = unreadCount;
+        notificationManager.markAllAsRead()
+                .addOnSuccessListener(aVoid -> {
+                    for (Notification notification : allNotifications) {
+                        notification.setRead(true);
+                    }
+                    notificationAdapter.notifyDataSetChanged();
+                    Toast.makeText(this, markedCount + " bildirim okundu işaretlendi",
+                            Toast.LENGTH_SHORT).show();
+                })
+                .addOnFailureListener(e -> Toast.makeText(this,
+                        "İşaretlenemedi: " + e.getMessage(), Toast.LENGTH_SHORT).show());
     }
 
     private String calculateTimeAgo(Date date) {
@@ -2,6 +2,9 @@ package com.example.echo;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,27 +14,50 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
-import com.bumptech.glide.Glide;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
-public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder> {
+public class PostAdapter extends ListAdapter<Post, PostAdapter.PostViewHolder> {
+
+    private static final String TAG = "PostAdapter";
 
-    private List<Post> postList;
     private LikeManager likeManager;
     private FirebaseFirestore db;
     private String currentUserId;
     private Context context; // ✅ Context'i sakla
+    private final LikeStatusResolver likeStatusResolver = LikeStatusResolver.getInstance();
+    private final Set<String> pendingLikeIds = new LinkedHashSet<>(); // Bu frame'de bind edilen, durumu bilinmeyenler
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean likeResolveScheduled = false;
+    private final Set<String> pendingShardLoads = new HashSet<>();   // İstek sürüyor
+    private final Set<String> queuedShardLoads = new LinkedHashSet<>(); // Bu frame'de istenecek
+    private boolean shardLoadScheduled = false;
+    // postId -> shard toplamları; Post'taki sayılar belgedeki taban değer olarak kalır
+    private final Map<String, ShardTotals> shardTotals = new HashMap<>();
+    private final LocalImageManager localImageManager;
 
-    public PostAdapter(List<Post> postList, Context context) { // ✅ Context parametre ekle
-        this.postList = postList;
+    public PostAdapter(Context context) { // ✅ Context parametre ekle
+        super(DIFF_CALLBACK);
         this.context = context; // ✅ Context'i sakla
         this.db = FirebaseFirestore.getInstance();
         this.currentUserId = FirebaseAuth.getInstance().getUid();
         this.likeManager = new LikeManager(db, currentUserId);
+        this.localImageManager = LocalImageManager.getInstance(context);
     }
 
     @NonNull
@@ -44,20 +70,23 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull PostViewHolder holder, int position) {
-        Post post = postList.get(position);
+        Post post = getItem(position);
 
         holder.userName.setText(post.getUserName());
         holder.usertag.setText("@" + post.getUserTag());
         holder.content.setText(post.getContent());
         holder.timeAgo.setText(post.getTimeAgo());
-        holder.commentCount.setText(String.valueOf(post.getCommentCount()));
-        holder.likeCount.setText(String.valueOf(post.getLikeCount()));
+        holder.commentCount.setText(String.valueOf(post.getCommentCount() + shardTotal(post, "commentCount")));
+        holder.likeCount.setText(String.valueOf(post.getLikeCount() + shardTotal(post, "likeCount")));
 
-        // Like durumunu Firebase'den kontrol et
-        likeManager.checkPostLikeStatus(post.getPostId(), isLiked -> {
-            post.setLiked(isLiked);
-            updateLikeButton(holder, isLiked);
-        });
+        // Like durumunu cache'ten al, bilinmiyorsa toplu çözümleme kuyruğuna ekle
+        Boolean cachedLiked = likeStatusResolver.getCached(currentUserId, "post", post.getPostId());
+        if (cachedLiked != null) {
+            post.setLiked(cachedLiked);
+        } else {
+            queueLikeResolution(post.getPostId());
+        }
+        updateLikeButton(holder, post.isLiked());
 
         // Profil fotoğrafına tıklama
         holder.itemView.findViewById(R.id.postProfileImage).setOnClickListener(v -> {
@@ -74,37 +103,22 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         });
 
         // ✨ POST GÖRSELİNİ YÜKLE (LOCAL)
-        if (post.getImageUrl() != null && !post.getImageUrl().isEmpty()) {
-            File imageFile = new File(post.getImageUrl());
-
-            if (imageFile.exists()) {
-                holder.postImage.setVisibility(View.VISIBLE);
-                Glide.with(holder.itemView.getContext())
-                        .load(imageFile)
-                        .centerCrop()
-                        .placeholder(R.color.background)
-                        .into(holder.postImage);
-            } else {
-                holder.postImage.setVisibility(View.GONE);
-            }
+        String imagePath = post.getImageUrl();
+        if (localImageManager.fileExists(imagePath) || localImageManager.isEvicted(imagePath)) {
+            // Disk bütçesi nedeniyle çıkarılmışsa ImageLoadHelper placeholder gösterir
+            holder.postImage.setVisibility(View.VISIBLE);
+            ImageLoadHelper.loadPostImage(holder.itemView.getContext(), imagePath, holder.postImage);
         } else {
             holder.postImage.setVisibility(View.GONE);
         }
 
-        // ✨ KULLANICI PROFİL FOTOĞRAFINI YÜKLE (LOCAL)
-        LocalImageManager localImageManager = new LocalImageManager(context); // ✅ Context kullan
-        String profileImagePath = localImageManager.getProfileImagePath(post.getUserId());
-
-        if (profileImagePath != null && localImageManager.fileExists(profileImagePath)) {
-            ImageLoadHelper.loadProfileImage(
-                    holder.itemView.getContext(),
-                    post.getUserId(),
-                    holder.profileImage,
-                    new LocalImageManager(holder.itemView.getContext())
-            );
-        } else {
-            holder.profileImage.setImageResource(R.mipmap.ic_launcher);
-        }
+        // ✨ KULLANICI PROFİL FOTOĞRAFINI YÜKLE (LOCAL, path index'ten gelir)
+        ImageLoadHelper.loadProfileImage(
+                holder.itemView.getContext(),
+                post.getUserId(),
+                holder.profileImage,
+                localImageManager
+        );
 
         // Beğeni butonu - FIREBASE İLE
         holder.likeButton.setOnClickListener(v -> {
@@ -113,9 +127,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
                 return;
             }
 
-            // Butonu devre dışı bırak (double-click önleme)
-            holder.likeButton.setEnabled(false);
-
+            // Buton kilitlenmiyor: ardışık dokunuşlar LikeManager'da tek yazmaya indirgenir
             // Mevcut durumu al
             boolean isCurrentlyLiked = post.isLiked();
             int currentLikeCount = post.getLikeCount();
@@ -127,41 +139,44 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
             } else {
                 post.setLikeCount(currentLikeCount - 1);
             }
-            holder.likeCount.setText(String.valueOf(post.getLikeCount()));
+            holder.likeCount.setText(String.valueOf(post.getLikeCount() + shardTotal(post, "likeCount")));
             updateLikeButton(holder, post.isLiked());
+            likeStatusResolver.setLiked(currentUserId, "post", post.getPostId(), post.isLiked());
 
             // Firebase'e kaydet
-            likeManager.togglePostLike(post.getPostId(), isCurrentlyLiked, new LikeManager.OnLikeCallback() {
+            // Sonuç pencere + ağ süresi sonra gelir: holder o sırada başka bir satırı gösteriyor
+            // olabilir, bu yüzden post ID ile bulunup notifyItemChanged ile yenilenir
+            String postId = post.getPostId();
+            likeManager.togglePostLike(postId, isCurrentlyLiked, new LikeManager.OnLikeCallback() {
                 @Override
-                public void onSuccess(boolean isNowLiked) {
-                    // Firebase'den güncel likeCount'u çek
-                    db.collection("posts").document(post.getPostId())
-                            .get()
-                            .addOnSuccessListener(documentSnapshot -> {
-                                if (documentSnapshot.exists()) {
-                                    Long likeCountLong = documentSnapshot.getLong("likeCount");
-                                    if (likeCountLong != null) {
-                                        post.setLikeCount(likeCountLong.intValue());
-                                        holder.likeCount.setText(String.valueOf(post.getLikeCount()));
-                                    }
-                                }
-                                holder.likeButton.setEnabled(true);
-                            })
-                            .addOnFailureListener(e -> {
-                                holder.likeButton.setEnabled(true);
-                            });
+                public void onSuccess(boolean isNowLiked, int likeCount) {
+                    int index = indexOfPost(postId);
+                    if (index == -1) return;
+
+                    Post current = getItem(index);
+                    current.setLiked(isNowLiked);
+                    // Yazma sonucundaki sayıyı kullan, post belgesini tekrar okuma
+                    if (likeCount != LikeManager.UNKNOWN_COUNT) {
+                        // Gelen sayı toplamdır; taban, gösterilen shard toplamına göre ayarlanır
+                        current.setLikeCount((int) (likeCount - shardTotal(current, "likeCount")));
+                    }
+                    notifyItemChanged(index);
                 }
 
                 @Override
-                public void onFailure(String error) {
-                    // Hata durumunda eski haline döndür
-                    post.setLiked(isCurrentlyLiked);
-                    post.setLikeCount(currentLikeCount);
-                    holder.likeCount.setText(String.valueOf(currentLikeCount));
-                    updateLikeButton(holder, isCurrentlyLiked);
-                    holder.likeButton.setEnabled(true);
-
-                    Toast.makeText(v.getContext(), "Hata: " + error, Toast.LENGTH_SHORT).show();
+                public void onFailure(String error, boolean confirmedLiked) {
+                    // Backend'de onaylanmış son duruma döndür (ara dokunuşların sayı etkisi geri alınır)
+                    int index = indexOfPost(postId);
+                    if (index != -1) {
+                        Post current = getItem(index);
+                        if (current.isLiked() != confirmedLiked) {
+                            current.setLikeCount(current.getLikeCount() + (confirmedLiked ? 1 : -1));
+                            current.setLiked(confirmedLiked);
+                        }
+                        notifyItemChanged(index);
+                    }
+
+                    Toast.makeText(context, "Hata: " + error, Toast.LENGTH_SHORT).show();
                 }
             });
         });
@@ -179,34 +194,146 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         });
     }
 
-    private void updateLikeButton(PostViewHolder holder, boolean isLiked) {
-        if (isLiked) {
-            holder.likeIcon.setImageResource(android.R.drawable.btn_star_big_on);
-            holder.likeIcon.setColorFilter(
-                    ContextCompat.getColor(holder.itemView.getContext(), R.color.error)
-            );
-            holder.likeCount.setTextColor(
-                    ContextCompat.getColor(holder.itemView.getContext(), R.color.error)
-            );
-        } else {
-            holder.likeIcon.setImageResource(android.R.drawable.btn_star_big_off);
-            holder.likeIcon.setColorFilter(
-                    ContextCompat.getColor(holder.itemView.getContext(), R.color.text_secondary)
-            );
-            holder.likeCount.setTextColor(
-                    ContextCompat.getColor(holder.itemView.getContext(), R.color.text_secondary)
-            );
+    /**
+     * Bir sayfanın beğeni durumlarını bind'lardan önce toplu olarak çöz
+     */
+    public void prefetchLikeStatus(List<Post> posts) {
+        List<String> postIds = new ArrayList<>();
+        for (Post post : posts) {
+            postIds.add(post.getPostId());
         }
+        likeStatusResolver.resolve(db, currentUserId, "post", postIds, this::notifyPostsChanged);
     }
 
-    @Override
-    public int getItemCount() {
-        return postList.size();
+    private void queueLikeResolution(String postId) {
+        if (currentUserId == null || postId == null) return;
+
+        pendingLikeIds.add(postId);
+        if (!likeResolveScheduled) {
+            likeResolveScheduled = true;
+            // Aynı frame'de bind edilen tüm satırları tek sorguda topla
+            mainHandler.post(() -> {
+                likeResolveScheduled = false;
+                List<String> postIds = new ArrayList<>(pendingLikeIds);
+                pendingLikeIds.clear();
+                likeStatusResolver.resolve(db, currentUserId, "post", postIds, this::notifyPostsChanged);
+            });
+        }
+    }
+
+    private int indexOfPost(String postId) {
+        List<Post> currentList = getCurrentList();
+        for (int i = 0; i < currentList.size(); i++) {
+            if (Objects.equals(currentList.get(i).getPostId(), postId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void notifyPostsChanged(Collection<String> postIds) {
+        List<Post> currentList = getCurrentList();
+        for (int i = 0; i < currentList.size(); i++) {
+            if (postIds.contains(currentList.get(i).getPostId())) {
+                notifyItemChanged(i);
+            }
+        }
     }
 
-    public void updatePosts(List<Post> newPosts) {
-        this.postList = newPosts;
-        notifyDataSetChanged();
+    /**
+     * Bir sayfanın shard toplamlarını bind'lardan önce toplu olarak iste
+     */
+    public void prefetchShardTotals(List<Post> posts) {
+        List<String> postIds = new ArrayList<>();
+        for (Post post : posts) {
+            if (post.getPostId() != null && isShardTotalStale(post.getPostId())) {
+                postIds.add(post.getPostId());
+            }
+        }
+        loadShardTotals(postIds);
+    }
+
+    /**
+     * Post'un gösterilecek shard toplamı (bind sırasında taban değere eklenir)
+     * Bilinmiyorsa 0, süresi dolmuşsa son değer döner; eksikler frame sonunda toplu istenir
+     */
+    private long shardTotal(Post post, String field) {
+        String postId = post.getPostId();
+        if (postId == null) return 0;
+
+        if (isShardTotalStale(postId)) {
+            queueShardLoad(postId);
+        }
+        ShardTotals totals = shardTotals.get(postId);
+        Long value = totals != null ? totals.values.get(field) : null;
+        return value != null ? value : 0;
+    }
+
+    private boolean isShardTotalStale(String postId) {
+        ShardTotals totals = shardTotals.get(postId);
+        return totals == null || System.currentTimeMillis() - totals.fetchedAt >= ShardedCounter.CACHE_TTL_MS;
+    }
+
+    private void queueShardLoad(String postId) {
+        queuedShardLoads.add(postId);
+        if (!shardLoadScheduled) {
+            shardLoadScheduled = true;
+            // Aynı frame'de bind edilen tüm satırlar tek seferde istenir, tek notify ile yenilenir
+            mainHandler.post(() -> {
+                shardLoadScheduled = false;
+                List<String> postIds = new ArrayList<>(queuedShardLoads);
+                queuedShardLoads.clear();
+                loadShardTotals(postIds);
+            });
+        }
+    }
+
+    /**
+     * Post başına tek sum() aggregation (shard belgeleri indirilmez); hepsi bitince
+     * yüklenenler yeniden bind edilir. Başarısız olanlar bekleyenlerden çıkar, sonraki bind'da tekrar denenir
+     */
+    private void loadShardTotals(List<String> postIds) {
+        List<Task<Boolean>> loads = new ArrayList<>();
+        List<String> requestedIds = new ArrayList<>();
+        for (String postId : postIds) {
+            if (!pendingShardLoads.add(postId)) continue;
+
+            DocumentReference postRef = db.collection("posts").document(postId);
+            requestedIds.add(postId);
+            loads.add(ShardedCounter.loadSums(postRef, "likeCount", "commentCount")
+                    .continueWith(task -> {
+                        pendingShardLoads.remove(postId);
+                        if (!task.isSuccessful()) {
+                            Log.e(TAG, "Shard toplamları alınamadı: " + postId, task.getException());
+                            return false;
+                        }
+                        shardTotals.put(postId, new ShardTotals(task.getResult()));
+                        return true;
+                    }));
+        }
+        if (loads.isEmpty()) return;
+
+        Tasks.whenAllSuccess(loads).addOnSuccessListener(results -> {
+            List<String> loadedIds = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    loadedIds.add(requestedIds.get(i));
+                }
+            }
+            if (!loadedIds.isEmpty()) {
+                notifyPostsChanged(loadedIds);
+            }
+        });
+    }
+
+    private static class ShardTotals {
+        final Map<String, Long> values;
+        final long fetchedAt;
+
+        ShardTotals(Map<String, Long> values) {
+            this.values = values;
+            this.fetchedAt = System.currentTimeMillis();
+        }
     }
 
     static class PostViewHolder extends RecyclerView.ViewHolder {
@@ -10,8 +10,6 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
-import com.bumptech.glide.Glide;
-import java.io.File;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
@@ -22,12 +20,14 @@ import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -52,6 +52,9 @@ public class ProfileActivity extends AppCompatActivity {
     private String userId;
     private boolean isOwnProfile;
     private boolean isFollowing = false;
+    private long followerCountBase = 0;
+    private User indexedProfile; // Yerel arama index'ine yazılacak profil
+    private long followingCountBase = 0;
     private PostAdapter postAdapter;
     private List<Post> userPosts;
     private ActivityResultLauncher<Intent> editProfileLauncher;
@@ -60,7 +63,7 @@ public class ProfileActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_profile);
-        localImageManager = new LocalImageManager(this);
+        localImageManager = LocalImageManager.getInstance(this);
 
         // Firebase başlat
         mAuth = FirebaseAuth.getInstance();
@@ -80,9 +83,8 @@ public class ProfileActivity extends AppCompatActivity {
                 result -> {
                     if (result.getResultCode() == RESULT_OK) {
                         // Profil güncellendi, sayfayı yenile
+                        // (Glide girdileri kaydetme sırasında kullanıcı bazında geçersiz kılındı)
                         loadUserProfile();
-                        // Cache'i temizle
-                        localImageManager.clearGlideCache(userId);
                     }
                 }
         );
@@ -123,7 +125,7 @@ public class ProfileActivity extends AppCompatActivity {
 
         // RecyclerView setup
         userPosts = new ArrayList<>();
-        postAdapter = new PostAdapter(userPosts, this);
+        postAdapter = new PostAdapter(this);
         postsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         postsRecyclerView.setAdapter(postAdapter);
     }
@@ -139,6 +141,7 @@ public class ProfileActivity extends AppCompatActivity {
                     .setPositiveButton("Çıkış Yap", (dialog, which) -> {
 
                         // Firebase logout
+                        UserProfileCache.getInstance().stopListening();
                         FirebaseAuth.getInstance().signOut();
 
                         // LoginActivity'e yönlendir
@@ -270,39 +273,38 @@ public class ProfileActivity extends AppCompatActivity {
         db.collection("follows")
                 .add(followData)
                 .addOnSuccessListener(documentReference -> {
-                    // Takip eden kullanıcının followingCount'unu artır
-                    db.collection("users").document(currentUser.getUid())
-                            .update("followingCount", FieldValue.increment(1));
-
-                    // Takip edilen kullanıcının followerCount'unu artır
-                    db.collection("users").document(userId)
-                            .update("followerCount", FieldValue.increment(1))
-                            .addOnSuccessListener(aVoid -> {
-                                // Firebase'den güncel sayıyı çek
-                                db.collection("users").document(userId)
-                                        .get()
-                                        .addOnSuccessListener(doc -> {
-                                            Long followerCountLong = doc.getLong("followerCount");
-                                            if (followerCountLong != null) {
-                                                followersCount.setText(String.valueOf(followerCountLong));
-                                            }
-                                        });
-                            });
-
-                    // ✨ BİLDİRİM OLUŞTUR
-                    db.collection("users").document(currentUser.getUid())
-                            .get()
-                            .addOnSuccessListener(userDoc -> {
-                                String senderName = userDoc.getString("fullName");
-                                String senderUsertag = userDoc.getString("usertag");
-
-                                NotificationManager notificationManager = new NotificationManager(db, currentUser.getUid());
-                                notificationManager.createFollowNotification(
-                                        userId,
-                                        senderName,
-                                        senderUsertag
-                                );
-                            });
+                    // Takip sayılarını sıcak kullanıcı belgeleri yerine shard'lara yaz
+                    ShardedCounter.increment(db.collection("users").document(currentUser.getUid()),
+                            "followingCount", 1);
+                    ShardedCounter.increment(db.collection("users").document(userId),
+                            "followerCount", 1)
+                            .addOnSuccessListener(aVoid -> refreshFollowCounts());
+
+                    // ✨ BİLDİRİM OLUŞTUR (gönderen bilgisi cache'te yoksa oku)
+                    NotificationManager notificationManager = new NotificationManager(db, currentUser.getUid());
+                    UserProfileCache.Profile profile = UserProfileCache.getInstance().get(currentUser.getUid());
+                    if (profile != null) {
+                        notificationManager.createFollowNotification(
+                                userId,
+                                profile.getFullName(),
+                                profile.getUsertag()
+                        );
+                    } else {
+                        db.collection("users").document(currentUser.getUid())
+                                .get()
+                                .addOnSuccessListener(userDoc -> {
+                                    String senderName = userDoc.getString("fullName");
+                                    String senderUsertag = userDoc.getString("usertag");
+                                    UserProfileCache.getInstance().put(currentUser.getUid(),
+                                            senderName, senderUsertag);
+
+                                    notificationManager.createFollowNotification(
+                                            userId,
+                                            senderName,
+                                            senderUsertag
+                                    );
+                                });
+                    }
 
                     isFollowing = true;
                     updateFollowButton();
@@ -333,24 +335,12 @@ public class ProfileActivity extends AppCompatActivity {
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
                         document.getReference().delete()
                                 .addOnSuccessListener(aVoid -> {
-                                    // Takip eden kullanıcının followingCount'unu azalt
-                                    db.collection("users").document(currentUser.getUid())
-                                            .update("followingCount", FieldValue.increment(-1));
-
-                                    // Takip edilen kullanıcının followerCount'unu azalt
-                                    db.collection("users").document(userId)
-                                            .update("followerCount", FieldValue.increment(-1))
-                                            .addOnSuccessListener(aVoid2 -> {
-                                                // Firebase'den güncel sayıyı çek
-                                                db.collection("users").document(userId)
-                                                        .get()
-                                                        .addOnSuccessListener(doc -> {
-                                                            Long followerCountLong = doc.getLong("followerCount");
-                                                            if (followerCountLong != null) {
-                                                                followersCount.setText(String.valueOf(followerCountLong));
-                                                            }
-                                                        });
-                                            });
+                                    // Takip sayılarını shard'lardan azalt
+                                    ShardedCounter.increment(db.collection("users").document(currentUser.getUid()),
+                                            "followingCount", -1);
+                                    ShardedCounter.increment(db.collection("users").document(userId),
+                                            "followerCount", -1)
+                                            .addOnSuccessListener(aVoid2 -> refreshFollowCounts());
 
                                     // ✨ BİLDİRİMİ SİL
                                     NotificationManager notificationManager = new NotificationManager(db, currentUser.getUid());
@@ -375,6 +365,41 @@ public class ProfileActivity extends AppCompatActivity {
                 });
     }
 
+    /**
+     * Takip sayılarını göster (belgedeki taban değer + shard toplamı)
+     */
+    private void refreshFollowCounts() {
+        DocumentReference userRef = db.collection("users").document(userId);
+        showFollowCounts(userRef);
+        ShardedCounter.loadSums(userRef, "followerCount", "followingCount")
+                .addOnSuccessListener(sums -> {
+                    showFollowCounts(userRef);
+                    indexProfile(userRef);
+                })
+                .addOnFailureListener(e -> {
+                    // Taban değerler gösterilmeye devam eder
+                    android.util.Log.e("ProfileActivity", "Takip sayıları alınamadı", e);
+                });
+    }
+
+    /**
+     * Profili yerel arama index'ine taban + shard toplamı takipçi sayısıyla yaz
+     */
+    private void indexProfile(DocumentReference userRef) {
+        if (indexedProfile == null) return;
+
+        indexedProfile.setFollowerCount((int) (followerCountBase
+                + ShardedCounter.getCachedSum(userRef, "followerCount")));
+        LocalSearchIndex.getInstance(this).indexUsers(Collections.singletonList(indexedProfile));
+    }
+
+    private void showFollowCounts(DocumentReference userRef) {
+        followingCount.setText(String.valueOf(
+                followingCountBase + ShardedCounter.getCachedSum(userRef, "followingCount")));
+        followersCount.setText(String.valueOf(
+                followerCountBase + ShardedCounter.getCachedSum(userRef, "followerCount")));
+    }
+
     private void updateFollowButton() {
         if (isFollowing) {
             actionButton.setText("Takip Ediliyor");
@@ -414,35 +439,18 @@ public class ProfileActivity extends AppCompatActivity {
                         }
 
                         // ✨ PROFIL FOTOĞRAFI YÜKLE (LOCAL)
-                        String profileImagePath = localImageManager.getProfileImagePath(userId);
-                        if (profileImagePath != null && localImageManager.fileExists(profileImagePath)) {
-                            Glide.with(this)
-                                    .load(new File(profileImagePath))
-                                    .circleCrop()
-                                    .placeholder(R.mipmap.ic_launcher)
-                                    .error(R.mipmap.ic_launcher)
-                                    .into(profilePhoto);
-                        } else {
-                            // Varsayılan resim
-                            profilePhoto.setImageResource(R.mipmap.ic_launcher);
-                        }
+                        ImageLoadHelper.loadProfileImage(this, userId, profilePhoto, localImageManager);
 
                         // ✨ COVER FOTOĞRAFI YÜKLE (LOCAL)
-                        String coverImagePath = localImageManager.getCoverImagePath(userId);
-                        if (coverImagePath != null && localImageManager.fileExists(coverImagePath)) {
-                            Glide.with(this)
-                                    .load(new File(coverImagePath))
-                                    .centerCrop()
-                                    .into(coverPhoto);
-                        }
+                        ImageLoadHelper.loadCoverImage(this, userId, coverPhoto, localImageManager);
 
-                        if (followingCountLong != null) {
-                            followingCount.setText(String.valueOf(followingCountLong));
-                        }
+                        // Profil, takipçi toplamı bilinince yerel arama index'ine girer
+                        indexedProfile = new User(userId, name, userTag, null);
 
-                        if (followersCountLong != null) {
-                            followersCount.setText(String.valueOf(followersCountLong));
-                        }
+                        // Taban değerler + shard toplamları
+                        followingCountBase = followingCountLong != null ? followingCountLong : 0;
+                        followerCountBase = followersCountLong != null ? followersCountLong : 0;
+                        refreshFollowCounts();
 
                         // Katılma tarihi
                         SimpleDateFormat sdf = new SimpleDateFormat("MMMM yyyy", new Locale("tr"));
@@ -502,9 +510,11 @@ public class ProfileActivity extends AppCompatActivity {
                     });
 
                     userPosts.addAll(tempPosts);
+                    // Yüklenen gönderiler yerel arama index'ine girer
+                    LocalSearchIndex.getInstance(this).indexPosts(tempPosts);
 
                     toolbarPostCount.setText(postCount + " gönderi");
-                    postAdapter.notifyDataSetChanged();
+                    postAdapter.submitList(new ArrayList<>(userPosts));
 
                     if (userPosts.isEmpty()) {
                         Toast.makeText(this, "Henüz gönderi yok", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,111 @@
+package com.example.echo;
+
+import android.util.Log;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import java.util.List;
+
+/**
+ * Cursor tabanlı sayfalama motoru
+ * Sorguyu sabit boyutlu sayfalar halinde startAfter(lastSnapshot) ile yükler,
+ * böylece ilk yükleme süresi koleksiyon boyutundan bağımsız kalır
+ */
+public class QueryPager {
+
+    private static final String TAG = "QueryPager";
+
+    private final Query baseQuery;
+    private final int pageSize;
+
+    private DocumentSnapshot lastSnapshot;
+    private boolean isLoading = false;
+    private boolean hasMore = true;
+    private int generation = 0; // reset sonrası geç gelen sayfaları yok saymak için
+
+    public QueryPager(Query baseQuery, int pageSize) {
+        this.baseQuery = baseQuery;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Cursor'ı sıfırla ve ilk sayfayı yükle
+     */
+    public void loadFirstPage(OnPageCallback callback) {
+        reset();
+        loadNextPage(callback);
+    }
+
+    /**
+     * Bir sonraki sayfayı yükle (yükleme sürüyorsa veya sayfa kalmadıysa hiçbir şey yapma)
+     */
+    public void loadNextPage(OnPageCallback callback) {
+        if (isLoading || !hasMore) {
+            return;
+        }
+
+        isLoading = true;
+        final int requestGeneration = generation;
+        final boolean isFirstPage = lastSnapshot == null;
+
+        Query query = baseQuery.limit(pageSize);
+        if (lastSnapshot != null) {
+            query = query.startAfter(lastSnapshot);
+        }
+
+        query.get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    if (requestGeneration != generation) {
+                        return; // Bu arada reset edildi
+                    }
+
+                    List<DocumentSnapshot> documents = queryDocumentSnapshots.getDocuments();
+                    if (!documents.isEmpty()) {
+                        lastSnapshot = documents.get(documents.size() - 1);
+                    }
+                    hasMore = documents.size() >= pageSize;
+                    isLoading = false;
+
+                    callback.onPageLoaded(documents, isFirstPage);
+                })
+                .addOnFailureListener(e -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+
+                    Log.e(TAG, "Sayfa yüklenemedi", e);
+                    isLoading = false;
+                    callback.onFailure(e.getMessage());
+                });
+    }
+
+    /**
+     * Cursor'ı başka kaynaktan (ör. canlı dinleyici) yüklenmiş ilk sayfanın sonuna taşı;
+     * sonraki loadNextPage bu belgeden sonra devam eder
+     */
+    public void resumeAfter(DocumentSnapshot lastSnapshot, boolean hasMore) {
+        generation++;
+        this.lastSnapshot = lastSnapshot;
+        isLoading = false;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Sayfalama durumunu sıfırla
+     */
+    public void reset() {
+        generation++;
+        lastSnapshot = null;
+        isLoading = false;
+        hasMore = true;
+    }
+
+    public boolean isLoading() { return isLoading; }
+    public boolean hasMore() { return hasMore; }
+    public DocumentSnapshot getLastSnapshot() { return lastSnapshot; }
+
+    // Callback Interface
+    public interface OnPageCallback {
+        void onPageLoaded(List<DocumentSnapshot> documents, boolean isFirstPage);
+        void onFailure(String error);
+    }
+}
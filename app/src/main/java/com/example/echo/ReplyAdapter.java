@@ -11,10 +11,8 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.io.File;
 import java.util.List;
 
 public class ReplyAdapter extends RecyclerView.Adapter<ReplyAdapter.ReplyViewHolder> {
@@ -53,16 +51,8 @@ public class ReplyAdapter extends RecyclerView.Adapter<ReplyAdapter.ReplyViewHol
         holder.likeCount.setText(String.valueOf(reply.getLikeCount()));
 
         // Profil fotoğrafı yükle (LOCAL)
-        String profileImagePath = localImageManager.getProfileImagePath(reply.getUserId());
-        if (profileImagePath != null && localImageManager.fileExists(profileImagePath)) {
-            Glide.with(holder.itemView.getContext())
-                    .load(new File(profileImagePath))
-                    .circleCrop()
-                    .placeholder(R.mipmap.ic_launcher)
-                    .into(holder.profileImage);
-        } else {
-            holder.profileImage.setImageResource(R.mipmap.ic_launcher);
-        }
+        ImageLoadHelper.loadProfileImage(holder.itemView.getContext(), reply.getUserId(),
+                holder.profileImage, localImageManager);
 
         // Orijinal post bilgilerini yükle
         loadOriginalPost(reply.getPostId(), holder);
@@ -6,6 +6,7 @@ import android.os.Handler;
 import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.util.LruCache;
 import android.view.View;
 import android.widget.EditText;
 import android.widget.ImageView;
@@ -18,14 +19,21 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SearchActivity extends AppCompatActivity {
 
@@ -43,10 +51,20 @@ public class SearchActivity extends AppCompatActivity {
     private List<Post> postList;
 
     private FirebaseFirestore db;
+    private LocalSearchIndex localSearchIndex;
     private Handler searchHandler;
     private Runnable searchRunnable;
 
     private static final int SEARCH_DELAY = 500; // 500ms gecikme
+    private static final int USER_RESULT_LIMIT = 20;
+    private static final int USER_REFRESH_LIMIT = 8; // Takipçi toplamı tazelenen ilk satır (yaklaşık bir ekran)
+    private static final int POST_RESULT_LIMIT = 50;
+    private static final int MAX_POST_PAGES = 4; // Filtre sonrası limit için en fazla okunacak sayfa
+    private static final int RESULT_CACHE_SIZE = 20; // Son 20 sorgunun sonuçları
+    private static final long RESULT_CACHE_TTL_MS = 2 * 60 * 1000; // 2 dakika
+    private int searchGeneration = 0; // Her yeni aramada artar; eski nesil sonuçlar atılır
+    private final LruCache<String, CachedResults<User>> userResultCache = new LruCache<>(RESULT_CACHE_SIZE);
+    private final LruCache<String, CachedResults<Post>> postResultCache = new LruCache<>(RESULT_CACHE_SIZE);
     private int currentTab = 0; // 0: Kullanıcılar, 1: Gönderiler
 
     @Override
@@ -55,6 +73,7 @@ public class SearchActivity extends AppCompatActivity {
         setContentView(R.layout.activity_search);
 
         db = FirebaseFirestore.getInstance();
+        localSearchIndex = LocalSearchIndex.getInstance(this);
         searchHandler = new Handler(Looper.getMainLooper());
 
         initViews();
@@ -86,7 +105,7 @@ public class SearchActivity extends AppCompatActivity {
 
         // Gönderiler
         postList = new ArrayList<>();
-        postAdapter = new PostAdapter(postList, this); // ✅ Context ekle (this)
+        postAdapter = new PostAdapter(this); // ✅ Context ekle (this)
         postsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         postsRecyclerView.setAdapter(postAdapter);
     }
@@ -138,13 +157,23 @@ public class SearchActivity extends AppCompatActivity {
                     searchHandler.removeCallbacks(searchRunnable);
                 }
 
+                // Yeni nesil: yoldaki eski isteklerin sonuçları ekrana yazılmaz
+                int generation = ++searchGeneration;
+
                 if (query.isEmpty()) {
+                    showLoading(false);
                     showEmptyState(true);
                     return;
                 }
 
-                // Yeni arama isteği (500ms sonra)
-                searchRunnable = () -> performSearch(query);
+                // Son sorgulardan biriyse (ör. geri silme) ağa gitmeden göster
+                if (showCachedResults(query)) {
+                    return;
+                }
+
+                // Yerel index'ten anında sonuç, ağ araması 500ms sonra
+                searchLocally(query, generation);
+                searchRunnable = () -> searchRemotely(query, generation);
                 searchHandler.postDelayed(searchRunnable, SEARCH_DELAY);
             }
 
@@ -182,137 +211,320 @@ public class SearchActivity extends AppCompatActivity {
     }
 
     private void performSearch(String query) {
+        int generation = ++searchGeneration;
+        if (showCachedResults(query)) {
+            return;
+        }
+
+        searchLocally(query, generation);
+        searchRemotely(query, generation);
+    }
+
+    /**
+     * Yerel index'ten anında sonuç göster (ağ beklenmez)
+     */
+    private void searchLocally(String query, int generation) {
+        if (currentTab == 0) {
+            localSearchIndex.searchUsers(query, USER_RESULT_LIMIT, users -> {
+                if (generation != searchGeneration || users.isEmpty()) return;
+
+                userList.clear();
+                userList.addAll(users);
+                userAdapter.notifyDataSetChanged();
+                showEmptyState(false);
+            });
+        } else {
+            localSearchIndex.searchPosts(query, POST_RESULT_LIMIT, posts -> {
+                if (generation != searchGeneration || posts.isEmpty()) return;
+
+                postList.clear();
+                postList.addAll(withTimeAgo(posts));
+                postAdapter.submitList(new ArrayList<>(postList));
+                showEmptyState(false);
+            });
+        }
+    }
+
+    private void searchRemotely(String query, int generation) {
+        // Bu arada yeni bir arama başladıysa sorguyu hiç gönderme
+        if (generation != searchGeneration) return;
+
         showLoading(true);
 
         if (currentTab == 0) {
-            searchUsers(query);
+            searchUsers(query, generation);
         } else {
-            searchPosts(query);
+            searchPosts(query, generation);
         }
     }
 
-    private void searchUsers(String query) {
-        String lowerQuery = query.toLowerCase();
+    /**
+     * Sorgu son RESULT_CACHE_SIZE sonuç içinde ve taze ise anında göster
+     */
+    private boolean showCachedResults(String query) {
+        String key = cacheKey(currentTab, query);
 
-        db.collection("users")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    userList.clear();
+        if (currentTab == 0) {
+            CachedResults<User> cached = userResultCache.get(key);
+            if (cached == null || cached.isExpired()) return false;
 
-                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        User user = document.toObject(User.class);
-                        if (user != null) {
-                            user.setUserId(document.getId());
+            userList.clear();
+            userList.addAll(cached.items);
+            userAdapter.notifyDataSetChanged();
+            showUserResults(query);
+        } else {
+            CachedResults<Post> cached = postResultCache.get(key);
+            if (cached == null || cached.isExpired()) return false;
+
+            postList.clear();
+            postList.addAll(withTimeAgo(new ArrayList<>(cached.items)));
+            showPostResults(query);
+        }
+        return true;
+    }
 
-                            // İsim veya kullanıcı adı ile eşleştir
-                            String fullName = user.getFullName() != null ?
-                                    user.getFullName().toLowerCase() : "";
-                            String usertag = user.getUsertag() != null ?
-                                    user.getUsertag().toLowerCase() : "";
+    // Büyük/küçük harf ve Türkçe karakter farkları aynı önbellek girdisine düşer
+    private static String cacheKey(int tab, String query) {
+        return tab + ":" + SearchIndex.normalize(query);
+    }
 
-                            if (fullName.contains(lowerQuery) || usertag.contains(lowerQuery)) {
-                                userList.add(user);
-                            }
-                        }
+    private void searchUsers(String query, int generation) {
+        // Önek index'i üzerinden sorgu: sadece eşleşen kullanıcılar okunur
+        SearchIndex.userQuery(db, query, USER_RESULT_LIMIT)
+                .get()
+                .continueWithTask(prefixTask -> {
+                    List<DocumentSnapshot> documents = new ArrayList<>(
+                            prefixTask.getResult().getDocuments());
+                    Query fuzzyQuery = SearchIndex.fuzzyUserQuery(db, query, USER_RESULT_LIMIT);
+                    if (documents.size() >= USER_RESULT_LIMIT || fuzzyQuery == null) {
+                        return Tasks.forResult(documents);
                     }
 
-                    userAdapter.notifyDataSetChanged();
-                    showLoading(false);
+                    // Önek eşleşmesi az: yazım hatalı olabilir, fuzzyKeys ile de ara
+                    return fuzzyQuery.get().continueWith(fuzzyTask -> {
+                        if (fuzzyTask.isSuccessful()) {
+                            documents.addAll(fuzzyTask.getResult().getDocuments());
+                        }
+                        return documents;
+                    });
+                })
+                .addOnSuccessListener(documents -> {
+                    Map<String, User> networkUserMap = new LinkedHashMap<>();
 
-                    if (userList.isEmpty()) {
-                        showEmptyState(true);
-                        emptyStateText.setText("'" + query + "' için kullanıcı bulunamadı");
-                    } else {
-                        showEmptyState(false);
+                    for (DocumentSnapshot document : documents) {
+                        User user = document.toObject(User.class);
+                        if (user != null) {
+                            user.setUserId(document.getId());
+                            networkUserMap.put(document.getId(), user);
+                        }
                     }
+                    List<User> networkUsers = new ArrayList<>(networkUserMap.values());
+
+                    // Takip sayıları shard'lardadır: sıralama taban + bellekteki shard toplamıyla yapılır,
+                    // arama yolunda ağa gidilmez
+                    Map<String, Integer> followerBases = withCachedFollowerTotals(networkUsers);
+                    localSearchIndex.indexUsers(networkUsers);
+
+                    // Yerel index yazım hatalı eşleşmeleri de getirir; hepsi birlikte sıralanır
+                    localSearchIndex.searchUsers(query, USER_RESULT_LIMIT, localUsers -> {
+                        List<User> results = mergeUsers(query, networkUsers, localUsers);
+                        // Eski nesil sonuçlar da kendi sorguları için geçerli, önbelleğe girer
+                        userResultCache.put(cacheKey(0, query), new CachedResults<>(results));
+                        if (generation != searchGeneration) return;
+
+                        userList.clear();
+                        userList.addAll(results);
+                        userAdapter.notifyDataSetChanged();
+                        showUserResults(query);
+                        refreshFollowerTotals(results, followerBases, generation);
+                    });
                 })
                 .addOnFailureListener(e -> {
+                    if (generation != searchGeneration) return;
                     showLoading(false);
                     Toast.makeText(this, "Arama başarısız: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
                 });
     }
 
-    private void searchPosts(String query) {
-        String lowerQuery = query.toLowerCase();
+    /**
+     * Kullanıcıların takipçi sayısına bellekteki shard toplamını ekle (bilinmiyorsa taban değer).
+     * Dönen map kullanıcı id'si -> taban sayı; tazeleme toplamı bunun üzerine yazar
+     */
+    private Map<String, Integer> withCachedFollowerTotals(List<User> users) {
+        Map<String, Integer> bases = new HashMap<>();
+        for (User user : users) {
+            int base = user.getFollowerCount();
+            bases.put(user.getUserId(), base);
+            DocumentReference userRef = db.collection("users").document(user.getUserId());
+            user.setFollowerCount((int) (base + ShardedCounter.getCachedSum(userRef, "followerCount")));
+        }
+        return bases;
+    }
 
-        db.collection("posts")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    postList.clear();
-
-                    // Debug: Toplam gönderi sayısı
-                    int totalPosts = queryDocumentSnapshots.size();
-                    android.util.Log.d("SearchActivity", "Toplam gönderi: " + totalPosts);
-                    android.util.Log.d("SearchActivity", "Aranan kelime: " + lowerQuery);
-
-                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
-                        Post post = document.toObject(Post.class);
-                        if (post != null) {
-                            post.setPostId(document.getId());
-
-                            // İçerikte ara
-                            String content = post.getContent() != null ?
-                                    post.getContent().toLowerCase() : "";
-                            String userName = post.getUserName() != null ?
-                                    post.getUserName().toLowerCase() : "";
-                            String userTag = post.getUserTag() != null ?
-                                    post.getUserTag().toLowerCase() : "";
-
-                            // Debug
-                            android.util.Log.d("SearchActivity", "Post içeriği: " + content);
-
-                            // İçerik, kullanıcı adı veya usertag'de ara
-                            if (content.contains(lowerQuery) ||
-                                    userName.contains(lowerQuery) ||
-                                    userTag.contains(lowerQuery)) {
-
-                                // Timestamp'den timeAgo hesapla
-                                Timestamp timestamp = document.getTimestamp("timestamp");
-                                if (timestamp != null) {
-                                    post.setTimeAgo(calculateTimeAgo(timestamp.toDate()));
-                                    post.setTimestamp(timestamp); // Timestamp'i de set et
-                                } else {
-                                    post.setTimeAgo("Şimdi");
-                                }
-
-                                postList.add(post);
-                                android.util.Log.d("SearchActivity", "Post eklendi: " + content);
-                            }
-                        }
-                    }
+    /**
+     * Gösterilen ilk satırların shard toplamlarını arka planda tazele ve yerel index'e yaz;
+     * sonraki aramalar güncel sayıyla sıralar. Liste yerinde kalır (satırlar zıplamaz).
+     * Bu arada yeni arama başladıysa veya toplam cache'te güncelse istek atılmaz.
+     * Sadece tabanı bilinen (ağdan gelen) satırlar tazelenir
+     */
+    private void refreshFollowerTotals(List<User> results, Map<String, Integer> bases, int generation) {
+        List<User> refreshed = new ArrayList<>();
+        List<Task<Long>> sums = new ArrayList<>();
+        for (User user : results.subList(0, Math.min(USER_REFRESH_LIMIT, results.size()))) {
+            if (generation != searchGeneration) return;
+
+            Integer base = bases.get(user.getUserId());
+            DocumentReference userRef = db.collection("users").document(user.getUserId());
+            if (base == null || ShardedCounter.hasFreshSums(userRef, "followerCount")) continue;
+
+            refreshed.add(user);
+            sums.add(ShardedCounter.loadSum(userRef, "followerCount")
+                    .addOnSuccessListener(sum -> user.setFollowerCount((int) (base + sum))));
+        }
+        if (sums.isEmpty()) return;
 
-                    android.util.Log.d("SearchActivity", "Bulunan gönderi: " + postList.size());
-
-                    // En yeni en üstte olacak şekilde sırala
-                    if (postList.size() > 1) {
-                        postList.sort((p1, p2) -> {
-                            if (p1.getTimestamp() == null && p2.getTimestamp() == null) return 0;
-                            if (p1.getTimestamp() == null) return 1;
-                            if (p2.getTimestamp() == null) return -1;
-                            return Long.compare(p2.getTimestamp().getSeconds(),
-                                    p1.getTimestamp().getSeconds());
-                        });
-                    }
+        Tasks.whenAllComplete(sums).addOnSuccessListener(tasks ->
+                localSearchIndex.indexUsers(refreshed));
+    }
 
-                    postAdapter.notifyDataSetChanged();
-                    showLoading(false);
+    private void searchPosts(String query, int generation) {
+        Query postQuery = SearchIndex.postQuery(db, query);
+        if (postQuery == null) {
+            // Sorguda aranabilir kelime yok (sadece noktalama vb.)
+            if (generation != searchGeneration) return;
+            postList.clear();
+            showPostResults(query);
+            return;
+        }
+
+        // Kelime index'i üzerinden sorgu: en seçici kelimeyle eşleşen gönderiler en yeni önce okunur
+        QueryPager pager = new QueryPager(postQuery, POST_RESULT_LIMIT);
+        List<Post> networkPosts = new ArrayList<>();
+        pager.loadFirstPage(new QueryPager.OnPageCallback() {
+            private int pagesLoaded = 0;
 
-                    if (postList.isEmpty()) {
-                        showEmptyState(true);
-                        emptyStateText.setText("'" + query + "' için gönderi bulunamadı");
-                    } else {
-                        showEmptyState(false);
+            @Override
+            public void onPageLoaded(List<DocumentSnapshot> documents, boolean isFirstPage) {
+                if (generation != searchGeneration) return; // Yeni arama başladı, sayfalamayı bırak
+
+                for (DocumentSnapshot document : documents) {
+                    // Çok kelimeli sorgularda diğer kelimeler de geçmeli
+                    if (!SearchIndex.matchesAllTokens(document, query)) continue;
+
+                    Post post = document.toObject(Post.class);
+                    if (post != null) {
+                        post.setPostId(document.getId());
+                        post.setTimestamp(document.getTimestamp("timestamp"));
+                        networkPosts.add(post);
                     }
-                })
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Toast.makeText(this, "Arama başarısız: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
+                }
 
-                    // Debug için hatayı logla
-                    android.util.Log.e("SearchActivity", "Post arama hatası: ", e);
-                });
+                // İstemci filtresi sonuç eleyebilir: limit dolana kadar sonraki sayfa (en fazla MAX_POST_PAGES)
+                if (networkPosts.size() < POST_RESULT_LIMIT && pager.hasMore()
+                        && ++pagesLoaded < MAX_POST_PAGES) {
+                    pager.loadNextPage(this);
+                    return;
+                }
+                showNetworkPosts(query, generation, networkPosts.size() > POST_RESULT_LIMIT
+                        ? new ArrayList<>(networkPosts.subList(0, POST_RESULT_LIMIT)) : networkPosts);
+            }
+
+            @Override
+            public void onFailure(String error) {
+                if (generation != searchGeneration) return;
+                showLoading(false);
+                Toast.makeText(SearchActivity.this, "Arama başarısız: " + error,
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void showNetworkPosts(String query, int generation, List<Post> networkPosts) {
+        localSearchIndex.indexPosts(networkPosts);
+
+        // Ağdan gelen kopya (güncel sayılar) yerel kopyanın yerine geçer
+        localSearchIndex.searchPosts(query, POST_RESULT_LIMIT, localPosts -> {
+            List<Post> results = mergePosts(networkPosts, localPosts);
+            postResultCache.put(cacheKey(1, query), new CachedResults<>(results));
+            if (generation != searchGeneration) return;
+
+            postList.clear();
+            postList.addAll(withTimeAgo(results));
+            showPostResults(query);
+        });
+    }
+
+    /**
+     * Ağ ve yerel sonuçları birleştirip tek sıralamaya sok (ağ kopyası güncel sayılarla önceliklidir)
+     */
+    private static List<User> mergeUsers(String query, List<User> networkUsers, List<User> localUsers) {
+        Map<String, User> merged = new LinkedHashMap<>();
+        for (User user : localUsers) {
+            merged.put(user.getUserId(), user);
+        }
+        for (User user : networkUsers) {
+            merged.put(user.getUserId(), user);
+        }
+
+        List<UserSearchRanker.Candidate> candidates = new ArrayList<>(merged.size());
+        for (User user : merged.values()) {
+            candidates.add(new UserSearchRanker.Candidate(user));
+        }
+        return UserSearchRanker.rank(query, candidates, USER_RESULT_LIMIT);
+    }
+
+    private static List<Post> mergePosts(List<Post> networkPosts, List<Post> localPosts) {
+        Map<String, Post> merged = new LinkedHashMap<>();
+        for (Post post : localPosts) {
+            merged.put(post.getPostId(), post);
+        }
+        for (Post post : networkPosts) {
+            merged.put(post.getPostId(), post);
+        }
+
+        // En yeni en üstte olacak şekilde sırala
+        List<Post> posts = new ArrayList<>(merged.values());
+        posts.sort((p1, p2) -> {
+            if (p1.getTimestamp() == null && p2.getTimestamp() == null) return 0;
+            if (p1.getTimestamp() == null) return 1;
+            if (p2.getTimestamp() == null) return -1;
+            return Long.compare(p2.getTimestamp().getSeconds(),
+                    p1.getTimestamp().getSeconds());
+        });
+        return posts;
+    }
+
+    // Timestamp'den timeAgo hesapla
+    private List<Post> withTimeAgo(List<Post> posts) {
+        for (Post post : posts) {
+            Timestamp timestamp = post.getTimestamp();
+            post.setTimeAgo(timestamp != null ? calculateTimeAgo(timestamp.toDate()) : "Şimdi");
+        }
+        return posts;
+    }
+
+    private void showUserResults(String query) {
+        showLoading(false);
+
+        if (userList.isEmpty()) {
+            showEmptyState(true);
+            emptyStateText.setText("'" + query + "' için kullanıcı bulunamadı");
+        } else {
+            showEmptyState(false);
+        }
+    }
+
+    private void showPostResults(String query) {
+        postAdapter.submitList(new ArrayList<>(postList));
+        showLoading(false);
+
+        if (postList.isEmpty()) {
+            showEmptyState(true);
+            emptyStateText.setText("'" + query + "' için gönderi bulunamadı");
+        } else {
+            showEmptyState(false);
+        }
     }
 
     private String calculateTimeAgo(Date date) {
@@ -378,5 +590,24 @@ public class SearchActivity extends AppCompatActivity {
         if (searchHandler != null && searchRunnable != null) {
             searchHandler.removeCallbacks(searchRunnable);
         }
+        // Yoldaki isteklerin sonuçları kapanmış ekrana yazılmasın
+        searchGeneration++;
+    }
+
+    /**
+     * Bir sorgunun birleştirilmiş sonuçları (önbellek girdisi)
+     */
+    private static class CachedResults<T> {
+        final List<T> items;
+        final long cachedAt;
+
+        CachedResults(List<T> items) {
+            this.items = items;
+            this.cachedAt = System.currentTimeMillis();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - cachedAt > RESULT_CACHE_TTL_MS;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,295 @@
+package com.example.echo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sunucu Tarafı Arama Index'i
+ * Yazma sırasında belgelere normalize edilmiş arama anahtarları eklenir:
+ * users.searchKeys (ad, kelime ve usertag önekleri), users.fuzzyKeys (kelimelerin tek harf
+ * silinmiş halleri, yazım hatası toleransı için), posts.searchTokens (içerik kelimeleri).
+ * Aramalar whereArrayContains + limit ile yapılır; maliyet koleksiyon boyutuna değil
+ * eşleşme sayısına bağlıdır.
+ */
+public class SearchIndex {
+
+    private static final String TAG = "SearchIndex";
+    private static final String PREFS_NAME = "SearchIndexPrefs";
+    private static final String BACKFILL_KEY = "backfilled_v2_"; // v2: fuzzyKeys eklendi
+    public static final String FIELD_USER_KEYS = "searchKeys";
+    public static final String FIELD_USER_FUZZY_KEYS = "fuzzyKeys";
+    public static final String FIELD_POST_TOKENS = "searchTokens";
+
+    private static final int MAX_PREFIX_LENGTH = 20;  // Daha uzun sorgular 20 karaktere kesilir
+    private static final int MAX_POST_TOKENS = 100;
+    private static final int BATCH_SIZE = 400;
+    private static final int MIN_FUZZY_LENGTH = 4;     // Daha kısa kelimelerde yazım hatası aranmaz
+    private static final int MAX_ANY_VALUES = 30;      // whereArrayContainsAny değer sınırı
+    private static final Locale TURKISH = new Locale("tr", "TR");
+
+    private SearchIndex() {
+    }
+
+    /**
+     * Türkçe kurallarıyla küçült (İ->i, I->ı) ve aksanları katla (ı->i, ş->s ...),
+     * böylece "İstanbul", "ISTANBUL" ve "istanbul" aynı anahtara düşer
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String lower = text.toLowerCase(TURKISH);
+        StringBuilder builder = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case 'ı': builder.append('i'); break;
+                case 'ş': builder.append('s'); break;
+                case 'ğ': builder.append('g'); break;
+                case 'ü': builder.append('u'); break;
+                case 'ö': builder.append('o'); break;
+                case 'ç': builder.append('c'); break;
+                case 'â': builder.append('a'); break;
+                case 'î': builder.append('i'); break;
+                case 'û': builder.append('u'); break;
+                case '̇': break; // Birleşik nokta (İ'nin bazı yazımları)
+                default: builder.append(c);
+            }
+        }
+        return builder.toString().trim();
+    }
+
+    /**
+     * Normalize edilmiş metni harf/rakam dışındaki karakterlerden böl
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Kullanıcı belgesi için önek anahtarları: usertag, tam ad ve ad içindeki her kelime
+     */
+    public static List<String> userSearchKeys(String fullName, String usertag) {
+        Set<String> keys = new LinkedHashSet<>();
+        addPrefixes(keys, normalize(usertag).replace("@", ""));
+        addPrefixes(keys, normalize(fullName));
+        for (String word : tokenize(fullName)) {
+            addPrefixes(keys, word);
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Kullanıcı belgesi için yazım hatası anahtarları: her kelime ve tek harfi silinmiş halleri.
+     * Sorgu kelimesi de aynı şekilde genişletilir; tek düzeltme (ekleme, silme, değiştirme,
+     * yer değiştirme) uzaklıktaki kelimeler en az bir ortak anahtar paylaşır
+     */
+    public static List<String> userFuzzyKeys(String fullName, String usertag) {
+        Set<String> words = new LinkedHashSet<>(tokenize(fullName));
+        words.addAll(tokenize(usertag));
+        words.add(normalize(usertag).replace("@", ""));
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (String word : words) {
+            if (word.length() >= MIN_FUZZY_LENGTH) {
+                keys.addAll(singleDeletions(word));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static Set<String> singleDeletions(String word) {
+        if (word.length() > MAX_PREFIX_LENGTH) {
+            word = word.substring(0, MAX_PREFIX_LENGTH);
+        }
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(word);
+        for (int i = 0; i < word.length(); i++) {
+            variants.add(word.substring(0, i) + word.substring(i + 1));
+        }
+        return variants;
+    }
+
+    /**
+     * Gönderi belgesi için kelime anahtarları: içerik, yazar adı ve usertag
+     */
+    public static List<String> postSearchTokens(String content, String userName, String usertag) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(tokenize(userName));
+        tokens.addAll(tokenize(usertag));
+        for (String token : tokenize(content)) {
+            if (tokens.size() >= MAX_POST_TOKENS) break;
+            tokens.add(token);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static void addPrefixes(Set<String> keys, String text) {
+        int maxLength = Math.min(text.length(), MAX_PREFIX_LENGTH);
+        for (int i = 1; i <= maxLength; i++) {
+            keys.add(text.substring(0, i));
+        }
+    }
+
+    /**
+     * Kullanıcı arama sorgusu (önek eşleşmesi)
+     */
+    public static Query userQuery(FirebaseFirestore db, String query, int limit) {
+        String key = normalize(query).replace("@", "");
+        if (key.length() > MAX_PREFIX_LENGTH) {
+            key = key.substring(0, MAX_PREFIX_LENGTH);
+        }
+        return db.collection("users")
+                .whereArrayContains(FIELD_USER_KEYS, key)
+                .limit(limit);
+    }
+
+    /**
+     * Yazım hatası toleranslı kullanıcı sorgusu: en uzun kelimenin tek harf silinmiş halleri
+     * fuzzyKeys ile eşleştirilir, sonuçlar UserSearchRanker ile elenip sıralanır.
+     * Sadece tam kelimeler arasındaki tek düzeltmeyi yakalar (yazılmakta olan kelimenin öneki
+     * değil). Kelime kısaysa null
+     */
+    public static Query fuzzyUserQuery(FirebaseFirestore db, String query, int limit) {
+        String longest = "";
+        for (String token : tokenize(query)) {
+            if (token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        if (longest.length() < MIN_FUZZY_LENGTH) {
+            return null;
+        }
+
+        List<String> variants = new ArrayList<>(singleDeletions(longest));
+        if (variants.size() > MAX_ANY_VALUES) {
+            variants = variants.subList(0, MAX_ANY_VALUES);
+        }
+        return db.collection("users")
+                .whereArrayContainsAny(FIELD_USER_FUZZY_KEYS, variants)
+                .limit(limit);
+    }
+
+    /**
+     * Gönderi arama sorgusu: en uzun (en seçici) kelimeyle sorgulanır, en yeni önce sıralanır,
+     * diğer kelimeler matchesAllTokens ile istemcide elenir. Sorguda kelime yoksa null.
+     * Limit yoktur, çağıran sayfalar (QueryPager); searchTokens + timestamp DESC bileşik
+     * index'i firestore.indexes.json'da tanımlıdır
+     */
+    public static Query postQuery(FirebaseFirestore db, String query) {
+        String longest = null;
+        for (String token : tokenize(query)) {
+            if (longest == null || token.length() > longest.length()) {
+                longest = token;
+            }
+        }
+        if (longest == null) {
+            return null;
+        }
+        return db.collection("posts")
+                .whereArrayContains(FIELD_POST_TOKENS, longest)
+                .orderBy("timestamp", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Gönderi sorgudaki tüm kelimeleri içeriyor mu?
+     */
+    public static boolean matchesAllTokens(DocumentSnapshot document, String query) {
+        Object stored = document.get(FIELD_POST_TOKENS);
+        if (!(stored instanceof List)) {
+            return false;
+        }
+        List<?> tokens = (List<?>) stored;
+        for (String token : tokenize(query)) {
+            if (!tokens.contains(token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Kullanıcının kendi belgesine ve gönderilerine eksik arama anahtarlarını yaz
+     * (index'ten önce oluşturulmuş veriler için, kullanıcı başına bir kez).
+     * Sadece oturum açan kullanıcının belgeleri yazılabilir; diğer kullanıcıların eski
+     * belgeleri, o kullanıcılar uygulamayı açana kadar sunucu aramasında görünmez
+     */
+    public static void backfillIfNeeded(Context context, FirebaseFirestore db, String userId) {
+        if (userId == null) {
+            return;
+        }
+
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (prefs.getBoolean(BACKFILL_KEY + userId, false)) {
+            return;
+        }
+
+        Task<DocumentSnapshot> userTask = db.collection("users").document(userId).get();
+        Task<QuerySnapshot> postsTask = db.collection("posts")
+                .whereEqualTo("userId", userId)
+                .get();
+
+        Tasks.whenAllSuccess(userTask, postsTask)
+                .addOnSuccessListener(results -> {
+                    List<Task<Void>> commits = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int pending = 0;
+
+                    DocumentSnapshot userDoc = userTask.getResult();
+                    if (userDoc.exists() && (userDoc.get(FIELD_USER_KEYS) == null
+                            || userDoc.get(FIELD_USER_FUZZY_KEYS) == null)) {
+                        String fullName = userDoc.getString("fullName");
+                        String usertag = userDoc.getString("usertag");
+                        batch.update(userDoc.getReference(),
+                                FIELD_USER_KEYS, userSearchKeys(fullName, usertag),
+                                FIELD_USER_FUZZY_KEYS, userFuzzyKeys(fullName, usertag));
+                        pending++;
+                    }
+
+                    for (DocumentSnapshot post : postsTask.getResult().getDocuments()) {
+                        if (post.get(FIELD_POST_TOKENS) != null) continue;
+
+                        batch.update(post.getReference(), FIELD_POST_TOKENS, postSearchTokens(
+                                post.getString("content"), post.getString("userName"),
+                                post.getString("usertag")));
+                        if (++pending == BATCH_SIZE) {
+                            commits.add(batch.commit());
+                            batch = db.batch();
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        commits.add(batch.commit());
+                    }
+
+                    Tasks.whenAll(commits)
+                            .addOnSuccessListener(aVoid -> {
+                                prefs.edit().putBoolean(BACKFILL_KEY + userId, true).apply();
+                                Log.d(TAG, "Arama anahtarları tamamlandı");
+                            })
+                            .addOnFailureListener(e -> Log.e(TAG, "Arama anahtarları yazılamadı", e));
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Arama anahtarı taraması başarısız", e));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.echo;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dağıtık (Sharded) Sayaç
+ * Tek bir sıcak belgedeki FieldValue.increment yazma limitini aşmak için artışları
+ * {parent}/shards/{0..NUM_SHARDS-1} alt belgelerinden rastgele birine yazar.
+ * Toplam = parent belgedeki taban değer (eski sayaç) + tüm shard'ların toplamı.
+ * Shard toplamları bellekte kısa süreliğine saklanır.
+ */
+public class ShardedCounter {
+
+    private static final String COLLECTION_SHARDS = "shards";
+    private static final int NUM_SHARDS = 10;
+    static final long CACHE_TTL_MS = 60_000; // 1 dakika
+
+    private static final Random random = new Random();
+    private static final Map<String, CachedSum> cache = new ConcurrentHashMap<>(); // "{path}#{alan}" -> toplam
+
+    private ShardedCounter() {
+    }
+
+    /**
+     * Transaction içinde rastgele bir shard'ı artır
+     */
+    public static void increment(Transaction transaction, DocumentReference parent,
+                                 String field, long delta) {
+        transaction.set(randomShard(parent), incrementData(field, delta), SetOptions.merge());
+    }
+
+    /**
+     * WriteBatch içinde rastgele bir shard'ı artır
+     */
+    public static void increment(WriteBatch batch, DocumentReference parent,
+                                 String field, long delta) {
+        batch.set(randomShard(parent), incrementData(field, delta), SetOptions.merge());
+    }
+
+    /**
+     * Rastgele bir shard'ı doğrudan artır
+     */
+    public static Task<Void> increment(DocumentReference parent, String field, long delta) {
+        return randomShard(parent)
+                .set(incrementData(field, delta), SetOptions.merge())
+                .addOnSuccessListener(aVoid -> applyLocalDelta(parent, field, delta));
+    }
+
+    /**
+     * Yazma onaylandıktan sonra cache'teki toplamı güncelle
+     * (transaction/batch ile yazanlar başarı sonrası çağırmalı)
+     */
+    public static void applyLocalDelta(DocumentReference parent, String field, long delta) {
+        cache.computeIfPresent(cacheKey(parent, field),
+                (key, sum) -> new CachedSum(sum.value + delta, sum.fetchedAt));
+    }
+
+    /**
+     * Cache'teki shard toplamı (bilinmiyorsa 0)
+     */
+    public static long getCachedSum(DocumentReference parent, String field) {
+        CachedSum sum = cache.get(cacheKey(parent, field));
+        return sum != null ? sum.value : 0;
+    }
+
+    /**
+     * İstenen alanların shard toplamları cache'te ve güncel mi?
+     */
+    public static boolean hasFreshSums(DocumentReference parent, String... fields) {
+        long now = System.currentTimeMillis();
+        for (String field : fields) {
+            CachedSum sum = cache.get(cacheKey(parent, field));
+            if (sum == null || now - sum.fetchedAt >= CACHE_TTL_MS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tek alanın shard toplamı (bkz. loadSums)
+     */
+    public static Task<Long> loadSum(DocumentReference parent, String field) {
+        return loadSums(parent, field).continueWith(task -> task.getResult().get(field));
+    }
+
+    /**
+     * Alanların shard toplamları; cache güncel değilse sunucuda tek bir sum() aggregation ile
+     * hesaplanır (shard belgeleri indirilmez, parent başına tek okuma). Hata Task'tan döner
+     */
+    public static Task<Map<String, Long>> loadSums(DocumentReference parent, String... fields) {
+        if (hasFreshSums(parent, fields)) {
+            Map<String, Long> values = new HashMap<>();
+            for (String field : fields) {
+                values.put(field, getCachedSum(parent, field));
+            }
+            return Tasks.forResult(values);
+        }
+
+        AggregateField[] sums = new AggregateField[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            sums[i] = AggregateField.sum(fields[i]);
+        }
+        return parent.collection(COLLECTION_SHARDS)
+                .aggregate(sums[0], Arrays.copyOfRange(sums, 1, sums.length))
+                .get(AggregateSource.SERVER)
+                .continueWith(task -> {
+                    AggregateQuerySnapshot snapshot = task.getResult();
+                    long fetchedAt = System.currentTimeMillis();
+                    Map<String, Long> values = new HashMap<>();
+                    for (int i = 0; i < fields.length; i++) {
+                        Long value = snapshot.getLong(sums[i]);
+                        values.put(fields[i], value != null ? value : 0L);
+                        cache.put(cacheKey(parent, fields[i]), new CachedSum(values.get(fields[i]), fetchedAt));
+                    }
+                    return values;
+                });
+    }
+
+    private static String cacheKey(DocumentReference parent, String field) {
+        return parent.getPath() + "#" + field;
+    }
+
+    private static DocumentReference randomShard(DocumentReference parent) {
+        return parent.collection(COLLECTION_SHARDS).document(String.valueOf(random.nextInt(NUM_SHARDS)));
+    }
+
+    private static Map<String, Object> incrementData(String field, long delta) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(field, FieldValue.increment(delta));
+        return data;
+    }
+
+    private static class CachedSum {
+        final long value;
+        final long fetchedAt;
+
+        CachedSum(long value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
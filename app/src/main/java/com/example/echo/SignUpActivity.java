@@ -155,6 +155,11 @@ public class SignUpActivity extends AppCompatActivity {
                         user.put("profileImageUrl", "");
                         user.put("followerCount", 0);
                         user.put("followingCount", 0);
+                        // Arama index'i için önek anahtarları
+                        user.put(SearchIndex.FIELD_USER_KEYS,
+                                SearchIndex.userSearchKeys(fullName, username));
+                        user.put(SearchIndex.FIELD_USER_FUZZY_KEYS,
+                                SearchIndex.userFuzzyKeys(fullName, username));
 
                         db.collection("users").document(userId)
                                 .set(user)
@@ -0,0 +1,121 @@
+package com.example.echo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.LruCache;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+/**
+ * Kullanıcı Profil Cache'i
+ * users/{uid} belgelerinden fullName ve usertag'i bellekte (LRU) tutar.
+ * Oturum açan kullanıcı tek bir snapshot listener ile güncel tutulur ve diske yazılır,
+ * böylece beğeni/yorum/takip/gönderi yazmadan önce users belgesini okumak gerekmez.
+ */
+public class UserProfileCache {
+
+    private static final String TAG = "UserProfileCache";
+    private static final String PREFS_NAME = "UserProfileCache";
+    private static final int MAX_ENTRIES = 200;
+
+    private static UserProfileCache instance;
+
+    private final LruCache<String, Profile> memoryCache = new LruCache<>(MAX_ENTRIES);
+    private SharedPreferences prefs; // startListening çağrılana kadar null
+    private ListenerRegistration currentUserListener;
+    private String listeningUserId;
+
+    private UserProfileCache() {
+    }
+
+    public static synchronized UserProfileCache getInstance() {
+        if (instance == null) {
+            instance = new UserProfileCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Oturum açan kullanıcıyı dinlemeye başla (diskteki snapshot hemen yüklenir)
+     */
+    public void startListening(Context context, FirebaseFirestore db, String userId) {
+        if (userId == null || userId.equals(listeningUserId)) {
+            return;
+        }
+        if (prefs == null) {
+            prefs = context.getApplicationContext()
+                    .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        }
+        stopListening();
+        listeningUserId = userId;
+
+        // Diskteki son snapshot
+        if (prefs != null && prefs.contains("fullName_" + userId)) {
+            memoryCache.put(userId, new Profile(
+                    prefs.getString("fullName_" + userId, null),
+                    prefs.getString("usertag_" + userId, null)));
+        }
+
+        currentUserListener = db.collection("users").document(userId)
+                .addSnapshotListener((documentSnapshot, error) -> {
+                    if (error != null) {
+                        Log.e(TAG, "Profil dinlenemedi", error);
+                        return;
+                    }
+                    if (documentSnapshot != null && documentSnapshot.exists()) {
+                        put(userId, documentSnapshot.getString("fullName"),
+                                documentSnapshot.getString("usertag"));
+                    }
+                });
+    }
+
+    /**
+     * Dinlemeyi bırak (çıkış yapıldığında)
+     */
+    public void stopListening() {
+        if (currentUserListener != null) {
+            currentUserListener.remove();
+            currentUserListener = null;
+        }
+        listeningUserId = null;
+    }
+
+    /**
+     * Cache'teki profili döndür (yoksa null)
+     */
+    public Profile get(String userId) {
+        return userId != null ? memoryCache.get(userId) : null;
+    }
+
+    /**
+     * Okunan bir profili cache'e ekle
+     */
+    public void put(String userId, String fullName, String usertag) {
+        if (userId == null || fullName == null) {
+            return;
+        }
+        memoryCache.put(userId, new Profile(fullName, usertag));
+
+        // Sadece oturum açan kullanıcı diske yazılır
+        if (prefs != null && userId.equals(listeningUserId)) {
+            prefs.edit()
+                    .putString("fullName_" + userId, fullName)
+                    .putString("usertag_" + userId, usertag)
+                    .apply();
+        }
+    }
+
+    public static class Profile {
+        private final String fullName;
+        private final String usertag;
+
+        Profile(String fullName, String usertag) {
+            this.fullName = fullName;
+            this.usertag = usertag;
+        }
+
+        public String getFullName() { return fullName; }
+        public String getUsertag() { return usertag; }
+    }
+}
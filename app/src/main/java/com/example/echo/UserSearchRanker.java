@@ -0,0 +1,227 @@
+package com.example.echo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Kullanıcı Arama Sıralaması
+ * Adaylar puanlanır: tam usertag > usertag öneki > ad öneki > kelime öneki > yazım hatası
+ * toleranslı (sınırlı edit distance) eşleşme. Sıralama önce eşleşme türüne (puanın yüzlük
+ * basamağı), sonra tür içi yakınlık + takipçi ek puanına göredir.
+ * Aday metinleri Candidate içinde bir kez normalize edilir, sorgu başına sadece
+ * karşılaştırma yapılır (birkaç bin aday birkaç ms içinde sıralanır).
+ * Yazım hatalı aramalarda adaylar önce 3-gram eşleşmesiyle daraltılır (bkz. ngrams).
+ */
+public class UserSearchRanker {
+
+    private static final int SCORE_EXACT_TAG = 1000;
+    private static final int SCORE_TAG_PREFIX = 600;
+    private static final int SCORE_NAME_PREFIX = 500;
+    private static final int SCORE_TOKEN_PREFIX = 400;
+    private static final int SCORE_FUZZY = 300;
+    private static final int FUZZY_PENALTY = 100;     // Her düzeltme için
+    private static final int TIER_WIDTH = 100;         // Puanın yüzlük basamağı eşleşme türüdür
+    private static final int MAX_FOLLOWER_BONUS = 150; // Sadece aynı tür içinde sıralamayı etkiler
+    private static final int NGRAM_SIZE = 3;
+
+    private UserSearchRanker() {
+    }
+
+    /**
+     * Puanlanacak kullanıcı ve normalize edilmiş metinleri
+     */
+    public static final class Candidate {
+        final User user;
+        final String tag;
+        final String fullName;
+        final String[] tokens;
+        final int followerBonus;
+
+        public Candidate(User user) {
+            this.user = user;
+            this.tag = SearchIndex.normalize(user.getUsertag()).replace("@", "");
+            this.fullName = SearchIndex.normalize(user.getFullName());
+
+            Set<String> tokenSet = new LinkedHashSet<>(SearchIndex.tokenize(user.getFullName()));
+            tokenSet.addAll(SearchIndex.tokenize(user.getUsertag()));
+            if (!tag.isEmpty()) {
+                tokenSet.add(tag); // "can_aslan" tek parça olarak da eşleşsin
+            }
+            this.tokens = tokenSet.toArray(new String[0]);
+
+            // log ölçeği: 10 takipçi ~25, 1M takipçi 150
+            this.followerBonus = (int) Math.min(MAX_FOLLOWER_BONUS,
+                    25 * Math.log10(1 + Math.max(0, user.getFollowerCount())));
+        }
+
+        public User getUser() { return user; }
+        public String[] getTokens() { return tokens; }
+    }
+
+    /**
+     * Adayları sorguya göre puanla, eşleşmeyenleri at, en iyi limit kadarını döndür
+     */
+    public static List<User> rank(String query, List<Candidate> candidates, int limit) {
+        String normalizedQuery = SearchIndex.normalize(query).replace("@", "");
+        String[] queryTokens = SearchIndex.tokenize(normalizedQuery).toArray(new String[0]);
+        if (queryTokens.length == 0) {
+            return new ArrayList<>();
+        }
+
+        // Tür, tür içi puan ve index tek long'a paketlenir: nesne oluşturmadan ilkel dizi sıralanır.
+        // Tür en üst bitlerde olduğu için takipçi ek puanı bir üst türü asla geçemez
+        long[] scored = new long[candidates.size()];
+        int count = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Candidate candidate = candidates.get(i);
+            int score = score(normalizedQuery, queryTokens, candidate);
+            if (score > 0) {
+                long tier = score / TIER_WIDTH;
+                long withinTier = score % TIER_WIDTH + candidate.followerBonus;
+                scored[count++] = (tier << 48) | (withinTier << 32) | i;
+            }
+        }
+
+        Arrays.sort(scored, 0, count);
+
+        List<User> results = new ArrayList<>(Math.min(count, limit));
+        for (int i = count - 1; i >= 0 && results.size() < limit; i--) {
+            results.add(candidates.get((int) scored[i]).user);
+        }
+        return results;
+    }
+
+    /**
+     * Adayın puanı (0 = eşleşme yok). Çok kelimeli sorguda her kelime eşleşmeli
+     */
+    static int score(String normalizedQuery, String[] queryTokens, Candidate candidate) {
+        if (!candidate.tag.isEmpty()) {
+            if (candidate.tag.equals(normalizedQuery)) {
+                return SCORE_EXACT_TAG;
+            }
+            if (candidate.tag.startsWith(normalizedQuery)) {
+                // Kısa usertag'ler (sorguya daha yakın) önde; yakınlık tür genişliğini aşmaz
+                return SCORE_TAG_PREFIX + closeness(normalizedQuery, candidate.tag);
+            }
+        }
+        if (candidate.fullName.startsWith(normalizedQuery)) {
+            return SCORE_NAME_PREFIX + closeness(normalizedQuery, candidate.fullName);
+        }
+
+        int total = 0;
+        for (String queryToken : queryTokens) {
+            int best = 0;
+            for (String token : candidate.tokens) {
+                best = Math.max(best, tokenScore(queryToken, token));
+                if (best == SCORE_TOKEN_PREFIX) break;
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total / queryTokens.length;
+    }
+
+    private static int closeness(String query, String text) {
+        return (TIER_WIDTH - 1) * query.length() / text.length();
+    }
+
+    private static int tokenScore(String queryToken, String token) {
+        if (token.startsWith(queryToken)) {
+            return SCORE_TOKEN_PREFIX;
+        }
+
+        int maxEdits = maxEdits(queryToken.length());
+        if (maxEdits == 0 || token.length() < queryToken.length() - maxEdits) {
+            return 0;
+        }
+
+        int distance = boundedPrefixDistance(queryToken, token, maxEdits);
+        return distance <= maxEdits ? SCORE_FUZZY - FUZZY_PENALTY * distance : 0;
+    }
+
+    /**
+     * Sorgu kelimesinin uzunluğuna göre izin verilen düzeltme sayısı
+     */
+    static int maxEdits(int length) {
+        if (length < 4) return 0;
+        if (length < 8) return 1;
+        return 2;
+    }
+
+    /**
+     * Sorgu ile token'ın herhangi bir öneki arasındaki en küçük Levenshtein mesafesi
+     * (yazılmakta olan kelime tam olmayabilir). maxEdits aşılırsa erken çıkar, maxEdits + 1 döner.
+     * Sadece köşegen çevresindeki 2*maxEdits+1 genişliğindeki bant hesaplanır; tek DP'nin
+     * son satırı tüm önek uzunlukları için mesafeyi verir
+     */
+    static int boundedPrefixDistance(String query, String token, int maxEdits) {
+        int outside = maxEdits + 1;
+        int length = Math.min(token.length(), query.length() + maxEdits);
+        if (length < query.length() - maxEdits) {
+            return outside;
+        }
+
+        int[] previous = new int[length + 1];
+        int[] current = new int[length + 1];
+        for (int j = 0; j <= length; j++) {
+            previous[j] = j <= maxEdits ? j : outside;
+        }
+
+        for (int i = 1; i <= query.length(); i++) {
+            int from = Math.max(1, i - maxEdits);
+            int to = Math.min(length, i + maxEdits);
+            current[0] = i <= maxEdits ? i : outside;
+            if (from > 1) current[from - 1] = outside;
+
+            int rowMin = current[0];
+            char c = query.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c == token.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost,
+                        Math.min(previous[j] + 1, current[j - 1] + 1));
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < length) current[to + 1] = outside;
+
+            if (rowMin > maxEdits) {
+                return outside;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = outside;
+        for (int j = Math.max(0, query.length() - maxEdits); j <= length; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    /**
+     * Kelimenin 3-gramları (başına sınır işareti eklenir: "can" -> "^ca", "can")
+     * Yazım hatalı sorgu kelimesi, doğru kelimeyle en az minSharedNgrams kadar 3-gram paylaşır
+     */
+    public static List<String> ngrams(String token) {
+        String padded = "^" + token;
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + NGRAM_SIZE <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + NGRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * Her düzeltme en fazla NGRAM_SIZE 3-gramı bozar
+     */
+    public static int minSharedNgrams(String queryToken) {
+        int gramCount = Math.max(0, queryToken.length() + 1 - NGRAM_SIZE + 1);
+        return Math.max(1, gramCount - NGRAM_SIZE * maxEdits(queryToken.length()));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.echo
+
+import org.junit.Test
+
+import org.junit.Assert.*
+
+/**
+ * notificationState/{uid} belgesine yapılan okundu yazmalarının diğer alanları koruması.
+ */
+class NotificationReadStateTest {
+
+    @Test
+    fun markAllAsReadOnlyWritesReadStateFields() {
+        val update = NotificationManager.markAllAsReadUpdate()
+
+        assertEquals(setOf(NotificationManager.FIELD_LAST_READ_AT, NotificationManager.FIELD_READ_IDS,
+                NotificationManager.FIELD_UNREAD_COUNT), update.keys)
+    }
+
+    @Test
+    fun keysMigratedSurvivesMarkAllAsRead() {
+        val state = mutableMapOf<String, Any?>(
+                NotificationManager.FIELD_KEYS_MIGRATED to true,
+                NotificationManager.FIELD_READ_IDS to listOf("a", "b"),
+                NotificationManager.FIELD_UNREAD_COUNT to 5L)
+
+        // set(..., SetOptions.merge()) sadece verilen alanları değiştirir
+        state.putAll(NotificationManager.markAllAsReadUpdate())
+
+        assertEquals(true, state[NotificationManager.FIELD_KEYS_MIGRATED])
+        assertEquals(0, state[NotificationManager.FIELD_UNREAD_COUNT])
+        assertEquals(emptyList<String>(), state[NotificationManager.FIELD_READ_IDS])
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.echo
+
+import org.junit.Test
+
+import org.junit.Assert.*
+import java.util.Random
+
+/**
+ * UserSearchRanker sıralama kuralları ve birkaç bin adayda süre bütçesi.
+ */
+class UserSearchRankerTest {
+
+    private fun candidate(id: String, fullName: String, usertag: String, followers: Int = 0) =
+            UserSearchRanker.Candidate(User(id, fullName, usertag, null).apply {
+                followerCount = followers
+            })
+
+    @Test
+    fun exactUsertagBeatsPrefixAndFollowers() {
+        val candidates = listOf(
+                candidate("1", "Can Aslan", "canaslan_fan", followers = 1_000_000),
+                candidate("2", "Can Aslan", "canaslan"),
+                candidate("3", "Canan Yılmaz", "canan"))
+
+        val results = UserSearchRanker.rank("canaslan", candidates, 10)
+
+        assertEquals(listOf("2", "1"), results.map { it.userId })
+    }
+
+    @Test
+    fun followersNeverLiftCandidateAboveBetterMatchType() {
+        val candidates = listOf(
+                candidate("token", "Ali Mehmet", "ali1", followers = 10_000_000),
+                candidate("name", "Mehmet Yıldız", "myildiz", followers = 10_000_000),
+                candidate("tag", "Ayşe Kaya", "mehmetfan"))
+
+        val results = UserSearchRanker.rank("mehmet", candidates, 10)
+
+        // usertag öneki > ad öneki > kelime öneki, takipçi sayısından bağımsız
+        assertEquals(listOf("tag", "name", "token"), results.map { it.userId })
+    }
+
+    @Test
+    fun followersOrderCandidatesWithinSameMatchType() {
+        val candidates = listOf(
+                candidate("1", "Mehmet Kaya", "mkaya"),
+                candidate("2", "Mehmet Kara", "mkara", followers = 50_000))
+
+        val results = UserSearchRanker.rank("mehmet", candidates, 10)
+
+        assertEquals(listOf("2", "1"), results.map { it.userId })
+    }
+
+    @Test
+    fun turkishCaseFoldingMatches() {
+        val candidates = listOf(candidate("1", "İsmail Şükrü", "ismail"))
+
+        assertEquals(1, UserSearchRanker.rank("ISMAIL", candidates, 10).size)
+        assertEquals(1, UserSearchRanker.rank("sukru", candidates, 10).size)
+    }
+
+    @Test
+    fun oneLetterTypoStillMatches() {
+        val candidates = listOf(
+                candidate("1", "Mehmet Demir", "mdemir"),
+                candidate("2", "Ahmet Kaya", "akaya"))
+
+        val results = UserSearchRanker.rank("mehmte", candidates, 10)
+
+        assertEquals(listOf("1"), results.map { it.userId })
+    }
+
+    @Test
+    fun shortQueriesAreNotFuzzy() {
+        val candidates = listOf(candidate("1", "Cem Kara", "cemkara"))
+
+        assertTrue(UserSearchRanker.rank("can", candidates, 10).isEmpty())
+    }
+
+    @Test
+    fun boundedPrefixDistance() {
+        assertEquals(0, UserSearchRanker.boundedPrefixDistance("mehm", "mehmet", 1))
+        assertEquals(1, UserSearchRanker.boundedPrefixDistance("mehmte", "mehmet", 1))
+        assertEquals(2, UserSearchRanker.boundedPrefixDistance("abcdef", "xyzxyz", 1))
+    }
+
+    @Test
+    fun ranksThousandsOfCandidatesWithinFrameBudget() {
+        val names = listOf("Mehmet", "Ahmet", "Ayşe", "Fatma", "Can", "Cem", "Zeynep", "Şükrü", "İsmail", "Ömer")
+        val random = Random(42)
+        val candidates = (0 until 3000).map { i ->
+            candidate("u$i", "${names[random.nextInt(names.size)]} ${names[random.nextInt(names.size)]}",
+                    "${names[random.nextInt(names.size)].lowercase()}$i", random.nextInt(100_000))
+        }
+
+        // JIT ısınması
+        repeat(50) { UserSearchRanker.rank("mehmte", candidates, 20) }
+
+        val iterations = 20
+        val start = System.nanoTime()
+        repeat(iterations) { UserSearchRanker.rank("mehmte", candidates, 20) }
+        val averageMs = (System.nanoTime() - start) / iterations / 1_000_000.0
+
+        assertTrue("Ortalama sıralama süresi $averageMs ms", averageMs < 16)
+    }
+}